@@ -52,6 +52,7 @@ public class HeosBindingConstants {
     public final static String CH_ID_PLAYLISTS = "Playlists";
     public final static String CH_ID_INPUTS = "Inputs";
     public final static String CH_ID_STATUS = "OnlineStatus";
+    public final static String CH_ID_FADE = "Fade";
 
     public final static String HOST = "ipAddress";
     public final static String PLAYER_TYPE = "model";
@@ -59,6 +60,11 @@ public class HeosBindingConstants {
     public final static String USER_NAME = "userName";
     public final static String PASSWORD = "password";
     public final static String HEART_BEAT = "heartBeat";
+    public final static String EVENT_COALESCING = "eventCoalescing";
+    public final static String COMMAND_CONNECTIONS = "commandConnections";
+    public final static String EVENT_DISPATCHER = "eventDispatcher";
+    public final static String EVENT_DISPATCHER_SHARED = "shared";
+    public final static String EVENT_DISPATCHER_DEDICATED = "dedicated";
 
     public final static String LEADER = "leader";
 
@@ -87,6 +93,7 @@ public class HeosBindingConstants {
 
     // Time Constants
     public final static String HEART_BEAT_DELAY = "80";
+    public final static long DEFAULT_FADE_DURATION = 5000;
 
     public static Set<ThingTypeUID> supportedThingTypes() {
 
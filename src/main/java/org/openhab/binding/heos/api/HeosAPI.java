@@ -1,5 +1,9 @@
 package org.openhab.binding.heos.api;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import org.openhab.binding.heos.resources.HeosEventListener;
 
 public class HeosAPI {
@@ -62,6 +66,7 @@ public class HeosAPI {
 
     public void volume(String vol, String pid) {
 
+        controller.getFadeEngine().cancel(pid);
         controller.send(controller.command().setVolume(vol, pid));
 
     }
@@ -85,10 +90,50 @@ public class HeosAPI {
 
     public void volumeGroup(String vol, String pid) {
 
+        controller.getFadeEngine().cancel(pid);
         controller.send(controller.command().setGroupVolume(vol, pid));
 
     }
 
+    /**
+     * Fades the volume of the player to the target level and
+     * blocks till the target level is reached or the fade is cancelled.
+     *
+     * @param pid the pid of the player
+     * @param level the target volume (0 - 100)
+     * @param duration the duration of the fade in milliseconds
+     * @param curve the curve of the fade, e.g. {@link HeosFadeEngine#CURVE_LINEAR}
+     */
+
+    public void fade(String pid, int level, long duration, String curve) {
+
+        awaitFade(pid, controller.getFadeEngine().fade(pid, false, level, duration, curve));
+
+    }
+
+    public void fadeGroup(String gid, int level, long duration, String curve) {
+
+        awaitFade(gid, controller.getFadeEngine().fade(gid, true, level, duration, curve));
+
+    }
+
+    public void cancelFade(String pid) {
+
+        controller.getFadeEngine().cancel(pid);
+
+    }
+
+    private void awaitFade(String id, CompletableFuture<Void> fade) {
+        try {
+            fade.get();
+        } catch (InterruptedException e) {
+            controller.getFadeEngine().cancel(id);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            // the fade was cancelled by a newer command
+        }
+    }
+
     public void ungroupGroup(String gid) {
         String[] pid = new String[] { gid };
         controller.send(controller.command().setGroup(pid));
@@ -142,15 +187,42 @@ public class HeosAPI {
 
     }
 
-    public void registerforChangeEvents(HeosEventListener listener) {
+    /**
+     * Registers the listener for the state and media events
+     * of a single player or group.
+     *
+     * @param pid the pid of the player or the gid of the group
+     * @param listener the listener
+     */
+
+    public void registerforChangeEvents(String pid, HeosEventListener listener) {
+
+        event.addListener(pid, listener);
+
+    }
+
+    public void unregisterforChangeEvents(String pid, HeosEventListener listener) {
+
+        event.removeListener(pid, listener);
+
+    }
+
+    /**
+     * Registers the listener for the bridge wide events
+     * of the HEOS system.
+     *
+     * @param listener the listener
+     */
+
+    public void registerforBridgeEvents(HeosEventListener listener) {
 
-        event.addListener(listener);
+        event.addBridgeListener(listener);
 
     }
 
-    public void unregisterforChangeEvents(HeosEventListener listener) {
+    public void unregisterforBridgeEvents(HeosEventListener listener) {
 
-        event.removeListener(listener);
+        event.removeBridgeListener(listener);
 
     }
 
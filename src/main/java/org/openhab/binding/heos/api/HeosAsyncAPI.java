@@ -0,0 +1,172 @@
+package org.openhab.binding.heos.api;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.openhab.binding.heos.resources.HeosGroup;
+import org.openhab.binding.heos.resources.HeosResponse;
+
+/**
+ * The {@link HeosAsyncAPI} provides the same commands as the {@link HeosAPI}
+ * but does not block the calling thread. Every method returns a
+ * {@link CompletableFuture} which is completed with the response of the
+ * HEOS system, or with {@code null} if the command could not be send.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosAsyncAPI {
+
+    private HeosSystem controller = null;
+
+    public HeosAsyncAPI(HeosSystem controller) {
+
+        this.controller = controller;
+    }
+
+    public CompletableFuture<HeosResponse> pause(String pid) {
+
+        return controller.sendAsync(controller.command().setPlayStatePause(pid));
+
+    }
+
+    public CompletableFuture<HeosResponse> play(String pid) {
+
+        return controller.sendAsync(controller.command().setPlayStatePlay(pid));
+
+    }
+
+    public CompletableFuture<HeosResponse> stop(String pid) {
+
+        return controller.sendAsync(controller.command().setPlayStateStop(pid));
+
+    }
+
+    public CompletableFuture<HeosResponse> next(String pid) {
+
+        return controller.sendAsync(controller.command().playNext(pid));
+
+    }
+
+    public CompletableFuture<HeosResponse> previous(String pid) {
+
+        return controller.sendAsync(controller.command().playPrevious(pid));
+
+    }
+
+    public CompletableFuture<HeosResponse> mute(String pid) {
+
+        return controller.sendAsync(controller.command().setMuteToggle(pid));
+    }
+
+    public CompletableFuture<HeosResponse> muteON(String pid) {
+
+        return controller.sendAsync(controller.command().setMuteOn(pid));
+
+    }
+
+    public CompletableFuture<HeosResponse> muteOFF(String pid) {
+
+        return controller.sendAsync(controller.command().setMuteOff(pid));
+
+    }
+
+    public CompletableFuture<HeosResponse> volume(String vol, String pid) {
+
+        controller.getFadeEngine().cancel(pid);
+        return controller.sendAsync(controller.command().setVolume(vol, pid));
+
+    }
+
+    public CompletableFuture<HeosResponse> muteGroup(String gid) {
+
+        return controller.sendAsync(controller.command().getToggleGroupMute(gid));
+    }
+
+    public CompletableFuture<HeosResponse> muteGroupON(String gid) {
+
+        return controller.sendAsync(controller.command().setGroupMuteOn(gid));
+
+    }
+
+    public CompletableFuture<HeosResponse> muteGroupOFF(String gid) {
+
+        return controller.sendAsync(controller.command().setGroupMuteOff(gid));
+
+    }
+
+    public CompletableFuture<HeosResponse> volumeGroup(String vol, String gid) {
+
+        controller.getFadeEngine().cancel(gid);
+        return controller.sendAsync(controller.command().setGroupVolume(vol, gid));
+
+    }
+
+    /**
+     * Fades the volume of the player to the target level.
+     *
+     * @param pid the pid of the player
+     * @param level the target volume (0 - 100)
+     * @param duration the duration of the fade in milliseconds
+     * @param curve the curve of the fade, e.g. {@link HeosFadeEngine#CURVE_LINEAR}
+     * @return a future completed when the target volume is reached
+     */
+
+    public CompletableFuture<Void> fade(String pid, int level, long duration, String curve) {
+
+        return controller.getFadeEngine().fade(pid, false, level, duration, curve);
+
+    }
+
+    public CompletableFuture<Void> fadeGroup(String gid, int level, long duration, String curve) {
+
+        return controller.getFadeEngine().fade(gid, true, level, duration, curve);
+
+    }
+
+    /**
+     * Ungroups the group by setting its leader as the only member
+     *
+     * @param gid the gid of the group
+     * @return a future completed with the response
+     */
+
+    public CompletableFuture<HeosResponse> ungroupGroup(String gid) {
+
+        HeosGroup group = controller.getGroupByGid(gid);
+        String leader = group == null || group.getLeader() == null ? gid : group.getLeader();
+        String[] pid = new String[] { leader };
+        return controller.sendAsync(controller.command().setGroup(pid));
+    }
+
+    public CompletableFuture<HeosResponse> groupPlayer(String[] pid) {
+
+        return controller.sendAsync(controller.command().setGroup(pid));
+    }
+
+    public CompletableFuture<HeosResponse> browseSource(String sid) {
+        return controller.sendAsync(controller.command().BrowseSource(sid));
+    }
+
+    public CompletableFuture<HeosResponse> addContainerToQueuePlayNow(String pid, String sid, String cid) {
+        return controller.sendAsync(controller.command().addContainerToQueuePlayNow(pid, sid, cid));
+    }
+
+    public CompletableFuture<HeosResponse> logIn(String name, String password) {
+
+        controller.command().setUsernamePwassword(name, password);
+        return controller.sendAsync(controller.command().signIn(name, password));
+
+    }
+
+    public CompletableFuture<HeosResponse> playStation(String pid, String sid, String cid, String mid, String name) {
+
+        return controller.sendAsync(controller.command().playStation(pid, sid, cid, mid, name));
+
+    }
+
+    public CompletableFuture<HeosResponse> playInputSource(String pid, String source) {
+        return controller.sendAsync(controller.command().playInputSource(pid, source));
+    }
+
+}
@@ -0,0 +1,149 @@
+package org.openhab.binding.heos.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.openhab.binding.heos.resources.HeosBatchResult;
+import org.openhab.binding.heos.resources.HeosResponse;
+
+/**
+ * The {@link HeosBatchAPI} sends the same command to several players or
+ * groups at once. All commands are send without waiting for the former
+ * responses, so they are pipelined and spread over the command connections.
+ * A scene with twelve players costs about one round trip instead of twelve.
+ *
+ * Every method returns a future which is completed with a
+ * {@link HeosBatchResult} containing the response per player when all
+ * commands are answered.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosBatchAPI {
+
+    private HeosSystem controller = null;
+
+    public HeosBatchAPI(HeosSystem controller) {
+
+        this.controller = controller;
+    }
+
+    public CompletableFuture<HeosBatchResult> play(Collection<String> pids) {
+
+        return send(pids, pid -> controller.command().setPlayStatePlay(pid));
+
+    }
+
+    public CompletableFuture<HeosBatchResult> pause(Collection<String> pids) {
+
+        return send(pids, pid -> controller.command().setPlayStatePause(pid));
+
+    }
+
+    public CompletableFuture<HeosBatchResult> stop(Collection<String> pids) {
+
+        return send(pids, pid -> controller.command().setPlayStateStop(pid));
+
+    }
+
+    public CompletableFuture<HeosBatchResult> next(Collection<String> pids) {
+
+        return send(pids, pid -> controller.command().playNext(pid));
+
+    }
+
+    public CompletableFuture<HeosBatchResult> previous(Collection<String> pids) {
+
+        return send(pids, pid -> controller.command().playPrevious(pid));
+
+    }
+
+    public CompletableFuture<HeosBatchResult> volume(Collection<String> pids, final String vol) {
+
+        for (String pid : pids) {
+            controller.getFadeEngine().cancel(pid);
+        }
+        return send(pids, pid -> controller.command().setVolume(vol, pid));
+
+    }
+
+    public CompletableFuture<HeosBatchResult> muteON(Collection<String> pids) {
+
+        return send(pids, pid -> controller.command().setMuteOn(pid));
+
+    }
+
+    public CompletableFuture<HeosBatchResult> muteOFF(Collection<String> pids) {
+
+        return send(pids, pid -> controller.command().setMuteOff(pid));
+
+    }
+
+    public CompletableFuture<HeosBatchResult> playStation(Collection<String> pids, final String sid,
+            final String cid, final String mid, final String name) {
+
+        return send(pids, pid -> controller.command().playStation(pid, sid, cid, mid, name));
+
+    }
+
+    public CompletableFuture<HeosBatchResult> addContainerToQueuePlayNow(Collection<String> pids, final String sid,
+            final String cid) {
+
+        return send(pids, pid -> controller.command().addContainerToQueuePlayNow(pid, sid, cid));
+
+    }
+
+    /**
+     * Groups the players. The HEOS system groups all players with a single
+     * command, so the response of this command is the result of every player.
+     *
+     * @param pids the players, the first one becomes the leader of the group
+     * @return a future completed with the result per player
+     */
+
+    public CompletableFuture<HeosBatchResult> groupPlayer(Collection<String> pids) {
+
+        final List<String> players = new ArrayList<String>(pids);
+        return controller.sendAsync(controller.command().setGroup(players.toArray(new String[players.size()])))
+                .thenApply(response -> {
+                    LinkedHashMap<String, HeosResponse> responses = new LinkedHashMap<String, HeosResponse>();
+                    for (String pid : players) {
+                        responses.put(pid, response);
+                    }
+                    return new HeosBatchResult(responses);
+                });
+    }
+
+    /**
+     * Sends the command created for every player or group at once
+     *
+     * @param pids the pids of the players or gids of the groups
+     * @param command creates the command for a pid or gid
+     * @return a future completed with the result per player or group
+     */
+
+    public CompletableFuture<HeosBatchResult> send(Collection<String> pids, Function<String, String> command) {
+
+        final List<String> players = new ArrayList<String>(pids);
+        final List<CompletableFuture<HeosResponse>> responses = new ArrayList<CompletableFuture<HeosResponse>>(
+                players.size());
+        for (String pid : players) {
+            responses.add(controller.sendAsync(command.apply(pid)));
+        }
+
+        return CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[responses.size()]))
+                .thenApply(done -> {
+                    LinkedHashMap<String, HeosResponse> result = new LinkedHashMap<String, HeosResponse>();
+                    for (int i = 0; i < players.size(); i++) {
+                        result.put(players.get(i), responses.get(i).join());
+                    }
+                    return new HeosBatchResult(result);
+                });
+    }
+
+}
@@ -0,0 +1,309 @@
+package org.openhab.binding.heos.api;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HeosConnectionManager} establishes and supervises the connections
+ * to the HEOS system. The attempts and heart beats are timed by the scheduler
+ * of the binding, but run on the I/O executor because they block on the
+ * network. So neither a thread of the framework nor a thread of the scheduler
+ * is blocked while the HEOS system is not available.
+ *
+ * The connection passes the following states:
+ * <ul>
+ * <li>DISCONNECTED: no connection, a reconnect may be scheduled</li>
+ * <li>CONNECTING: the command and event connections are opened</li>
+ * <li>REGISTERING: the HEOS system is probed for readiness and the event
+ * connection registers for change events</li>
+ * <li>ONLINE: all connections are established</li>
+ * <li>DEGRADED: the HEOS system can be used, but a heart beat failed or
+ * not all command connections could be opened</li>
+ * </ul>
+ *
+ * Failed attempts are retried with an exponential backoff with jitter, starting
+ * at {@value #BASE_DELAY} ms and limited to {@value #MAX_DELAY} ms. After
+ * {@value #MAX_ATTEMPTS} failed attempts the manager keeps retrying every
+ * {@value #MAX_DELAY} ms until it is stopped. Before a retry the CLI
+ * endpoint is checked. If the speaker is not reachable the connection fails
+ * over to the fastest reachable speaker of the system.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosConnectionManager {
+
+    public enum State {
+        DISCONNECTED,
+        CONNECTING,
+        REGISTERING,
+        ONLINE,
+        DEGRADED
+    }
+
+    private final static int BASE_DELAY = 500;
+    private final static int MAX_DELAY = 30000;
+    private final static int MAX_ATTEMPTS = 20;
+    private final static int RECHECK_DELAY = 2000;
+
+    private final HeosSystem system;
+    private final HeosEventController eventController;
+    private final ScheduledExecutorService scheduler;
+    private final Executor ioExecutor;
+    private final Random random = new Random();
+
+    private ScheduledFuture<?> nextConnect = null;
+    private ScheduledFuture<?> heartBeat = null;
+    private ScheduledFuture<?> heartBeatCheck = null;
+    private volatile State state = State.DISCONNECTED;
+    private boolean running = false;
+    private boolean available = false;
+    private int attempts = 0;
+    private int heartBeatFailures = 0;
+    private int heartBeatPulse = 0;
+
+    private final Runnable connectRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            ioExecutor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    connect();
+                }
+            });
+        }
+    };
+
+    private final Runnable heartBeatRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            ioExecutor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    checkConnection();
+                }
+            });
+        }
+    };
+
+    private Logger logger = LoggerFactory.getLogger(HeosConnectionManager.class);
+
+    /**
+     *
+     * @param system the HEOS system to be connected
+     * @param eventController informed when the connection is established or lost
+     * @param scheduler times the connection attempts and heart beats
+     * @param ioExecutor runs the connection attempts and heart beats, which block on the network
+     */
+
+    public HeosConnectionManager(HeosSystem system, HeosEventController eventController,
+            ScheduledExecutorService scheduler, Executor ioExecutor) {
+
+        this.system = system;
+        this.eventController = eventController;
+        this.scheduler = scheduler;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Starts to connect to the HEOS system. The method returns immediately.
+     * The listeners of the {@link HeosEventController} are informed when the
+     * connection is established or lost.
+     *
+     * @param heartBeatPulse the time in seconds between two heart beats
+     */
+
+    public synchronized void start(int heartBeatPulse) {
+
+        if (running) {
+            return;
+        }
+        this.heartBeatPulse = heartBeatPulse;
+        running = true;
+        attempts = 0;
+        nextConnect = scheduler.schedule(connectRunnable, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops all reconnect attempts and heart beats. The connections
+     * themselves are closed by the {@link HeosSystem}.
+     */
+
+    public synchronized void stop() {
+
+        running = false;
+        available = false;
+        cancel(nextConnect);
+        cancel(heartBeat);
+        cancel(heartBeatCheck);
+        nextConnect = null;
+        heartBeat = null;
+        heartBeatCheck = null;
+        setState(State.DISCONNECTED);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void connect() {
+
+        if (!isRunning()) {
+            return;
+        }
+        if (getAttempts() > 0) {
+            system.selectEndpoint();
+        }
+        setState(State.CONNECTING);
+        if (!system.openConnections()) {
+            retry("connections could not be opened");
+            return;
+        }
+
+        setState(State.REGISTERING);
+        if (!system.isReady()) {
+            retry("HEOS system not ready");
+            return;
+        }
+        if (!system.registerForChangeEvents()) {
+            retry("registering for change events failed");
+            return;
+        }
+
+        boolean stopped;
+        synchronized (this) {
+            stopped = !running;
+            if (!stopped) {
+                attempts = 0;
+                heartBeatFailures = 0;
+                available = true;
+                setState(system.isDegraded() ? State.DEGRADED : State.ONLINE);
+                if (heartBeatPulse > 0) {
+                    heartBeat = scheduler.scheduleWithFixedDelay(heartBeatRunnable, heartBeatPulse, heartBeatPulse,
+                            TimeUnit.SECONDS);
+                }
+            }
+        }
+        if (stopped) {
+            // The manager was stopped while the connections were opened
+            system.closeConnections();
+            return;
+        }
+        eventController.connectionToSystemRestored();
+    }
+
+    private void retry(String reason) {
+
+        system.closeConnections();
+        boolean wasAvailable;
+        long delay;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            setState(State.DISCONNECTED);
+            wasAvailable = available;
+            available = false;
+            attempts++;
+            if (attempts == MAX_ATTEMPTS + 1) {
+                logger.error("Could not connect to the HEOS system after {} attempts. Retrying every {} ms",
+                        MAX_ATTEMPTS, MAX_DELAY);
+            }
+            delay = attempts > MAX_ATTEMPTS ? MAX_DELAY : getBackoff(attempts);
+            nextConnect = scheduler.schedule(connectRunnable, delay, TimeUnit.MILLISECONDS);
+        }
+        logger.warn("HEOS connection attempt {} failed: {}. Next attempt in {} ms", attempts, reason, delay);
+        if (wasAvailable || attempts == 1) {
+            eventController.connectionToSystemLost();
+        }
+    }
+
+    /*
+     * Exponential backoff with jitter. The delay is chosen randomly between
+     * the half and the full exponential delay, so several bridges do not
+     * reconnect at the same time.
+     */
+
+    private long getBackoff(int attempt) {
+
+        long delay = Math.min(MAX_DELAY, (long) BASE_DELAY << Math.min(attempt - 1, 16));
+        return delay / 2 + (long) (random.nextDouble() * (delay / 2));
+    }
+
+    /*
+     * A failed heart beat degrades the connection and is checked again
+     * shortly. A second failure reconnects.
+     */
+
+    private void checkConnection() {
+
+        if (!isRunning()) {
+            return;
+        }
+        boolean alive = system.sendHeartBeat();
+        boolean degraded = system.isDegraded();
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            if (alive) {
+                if (heartBeatFailures > 0) {
+                    logger.info("HEOS heart beat successful again");
+                    heartBeatFailures = 0;
+                }
+                setState(degraded ? State.DEGRADED : State.ONLINE);
+                return;
+            }
+
+            heartBeatFailures++;
+            if (heartBeatFailures == 1) {
+                logger.warn("HEOS heart beat failed. Checking connection again in {} ms", RECHECK_DELAY);
+                setState(State.DEGRADED);
+                heartBeatCheck = scheduler.schedule(heartBeatRunnable, RECHECK_DELAY, TimeUnit.MILLISECONDS);
+                return;
+            }
+            if (heartBeatFailures > 2) {
+                return;
+            }
+            logger.error("Connection to HEOS Network lost!");
+            cancel(heartBeat);
+            heartBeat = null;
+            attempts = 0;
+        }
+        retry("heart beat failed");
+    }
+
+    private synchronized boolean isRunning() {
+        return running;
+    }
+
+    private synchronized int getAttempts() {
+        return attempts;
+    }
+
+    private void cancel(ScheduledFuture<?> future) {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private void setState(State newState) {
+
+        if (state != newState) {
+            logger.debug("HEOS connection state {} -> {}", state, newState);
+            state = newState;
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package org.openhab.binding.heos.api;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HeosEndpointSelector} knows all speakers which can serve the
+ * HEOS CLI. Every HEOS speaker accepts CLI connections, so if the configured
+ * speaker reboots or goes into standby the connection can fail over to
+ * another speaker of the system.
+ *
+ * The candidates are ranked by a probe which opens a connection to the CLI
+ * port and measures the time it takes. Unreachable speakers are skipped.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosEndpointSelector {
+
+    private final static int PROBE_TIMEOUT = 500;
+
+    private final LinkedHashSet<String> candidates = new LinkedHashSet<String>();
+    private final Map<String, Long> latencies = new ConcurrentHashMap<String, Long>();
+
+    private Logger logger = LoggerFactory.getLogger(HeosEndpointSelector.class);
+
+    /**
+     * Adds the IP of a speaker which can be used as CLI endpoint
+     *
+     * @param ip the IP address of the speaker
+     */
+
+    public synchronized void addCandidate(String ip) {
+        if (ip != null && !ip.isEmpty()) {
+            candidates.add(ip);
+        }
+    }
+
+    public synchronized List<String> getCandidates() {
+        return new ArrayList<String>(candidates);
+    }
+
+    /**
+     * Probes all candidates and ranks them. The fastest reachable speaker
+     * comes first.
+     *
+     * @param port the port of the HEOS CLI
+     * @return the reachable candidates, ordered by latency
+     */
+
+    public List<String> rank(int port) {
+
+        List<String> reachable = new ArrayList<String>();
+        for (String ip : getCandidates()) {
+            long latency = probe(ip, port);
+            if (latency >= 0) {
+                latencies.put(ip, latency);
+                reachable.add(ip);
+            } else {
+                latencies.remove(ip);
+            }
+        }
+        Collections.sort(reachable, new Comparator<String>() {
+
+            @Override
+            public int compare(String ip1, String ip2) {
+                return Long.compare(latencies.get(ip1), latencies.get(ip2));
+            }
+        });
+        logger.debug("HEOS CLI endpoints ranked: {} (latencies {})", reachable, latencies);
+        return reachable;
+    }
+
+    /**
+     * Selects the endpoint for the next connection. The current endpoint is
+     * kept as long as it is reachable, so the connection only fails over if
+     * the speaker is not available.
+     *
+     * @param current the endpoint used so far
+     * @param port the port of the HEOS CLI
+     * @return {@code current} if it is reachable, else the fastest reachable endpoint
+     *         or {@code current} if no candidate is reachable
+     */
+
+    public String select(String current, int port) {
+
+        if (current != null && !current.isEmpty()) {
+            long latency = probe(current, port);
+            if (latency >= 0) {
+                latencies.put(current, latency);
+                return current;
+            }
+            latencies.remove(current);
+        }
+        List<String> ranked = rank(port);
+        if (ranked.isEmpty()) {
+            return current;
+        }
+        return ranked.get(0);
+    }
+
+    /**
+     *
+     * @param ip the IP address of the speaker
+     * @return the latency of the last probe in ms or {@code null} if the speaker was not reachable
+     */
+
+    public Long getLatency(String ip) {
+        return latencies.get(ip);
+    }
+
+    private long probe(String ip, int port) {
+
+        long start = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(ip, port), PROBE_TIMEOUT);
+            return (System.nanoTime() - start) / 1000000;
+        } catch (IOException e) {
+            logger.debug("HEOS CLI endpoint {} not reachable: {}", ip, e.getMessage());
+            return -1;
+        }
+    }
+
+}
@@ -2,30 +2,74 @@ package org.openhab.binding.heos.api;
 
 import static org.openhab.binding.heos.resources.HeosConstants.*;
 
+import java.util.HashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import org.openhab.binding.heos.handler.HeosBridgeHandler;
 import org.openhab.binding.heos.resources.HeosCommands;
+import org.openhab.binding.heos.resources.HeosMessage;
 import org.openhab.binding.heos.resources.HeosResponse;
 import org.openhab.binding.heos.resources.MyEventListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * The {@link HeosEventController} evaluates the responses and events received
+ * from the HEOS system and informs the registered listeners.
+ *
+ * High frequent state events (e.g. while a volume slider is moved) are
+ * coalesced. Only the latest event per pid and event type within the
+ * coalescing window is handled when the window ends.
+ *
+ * @author Johannes Einig
+ *
+ */
+
 public class HeosEventController extends MyEventListener {
 
-    private HeosResponse response = null;
+    public final static int DEFAULT_COALESCING_WINDOW = 100;
+
     private HeosSystem system = null;
     private HeosCommands command = null;
-    private String eventType = null;
-    private String eventCommand = null;
+    private ScheduledExecutorService scheduler = null;
+
+    private volatile int coalescingWindow = DEFAULT_COALESCING_WINDOW;
+    private final HashMap<String, HeosResponse> coalescedEvents = new HashMap<String, HeosResponse>();
 
     private Logger logger = LoggerFactory.getLogger(HeosBridgeHandler.class);
 
-    public HeosEventController(HeosResponse response, HeosCommands command, HeosSystem system) {
-        this.response = response;
+    public HeosEventController(HeosCommands command, HeosSystem system, ScheduledExecutorService scheduler) {
         this.system = system;
         this.command = command;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sets the time window in which state events of the same player and type
+     * are coalesced.
+     *
+     * @param coalescingWindow the window in milliseconds. 0 disables coalescing
+     */
+
+    public void setCoalescingWindow(int coalescingWindow) {
+        this.coalescingWindow = coalescingWindow;
+    }
+
+    public int getCoalescingWindow() {
+        return coalescingWindow;
     }
 
-    public void handleEvent(int client) {
+    /**
+     * Handles a response received from the HEOS system. The method is called
+     * from several connections at the same time, so all information is taken
+     * from the handed response.
+     *
+     * @param response the received response
+     * @param client 0 if the response answers a send command, 1 if it is an event
+     */
+
+    public void handleEvent(HeosResponse response, int client) {
 
         if (client == 0) {
             logger.debug("HEOS send response: {}", response.getRawResponseMessage());
@@ -42,25 +86,25 @@ public class HeosEventController extends MyEventListener {
 
             return;
         } else {
-            this.eventType = response.getEvent().getEventType();
-            this.eventCommand = response.getEvent().getCommandType();
+            String eventType = response.getEvent().getEventType();
+            String eventCommand = response.getEvent().getCommandType();
 
             switch (eventType) {
 
                 case "event":
-                    eventTypeEvent();
+                    eventTypeEvent(response, eventCommand);
                     break;
                 case "player":
-                    eventTypePlayer();
+                    eventTypePlayer(response, eventCommand);
                     break;
                 case "system":
-                    eventTypeSystem();
+                    eventTypeSystem(response, eventCommand);
                     break;
                 case "browse":
-                    eventTypeBrowse();
+                    eventTypeBrowse(response, eventCommand);
                     break;
                 case "group":
-                    eventTypeGroup();
+                    eventTypeGroup(response, eventCommand);
                     break;
 
             }
@@ -68,7 +112,7 @@ public class HeosEventController extends MyEventListener {
         }
     }
 
-    private void eventTypeEvent() {
+    private void eventTypeEvent(HeosResponse response, String eventCommand) {
 
         switch (eventCommand) {
 
@@ -78,17 +122,17 @@ public class HeosEventController extends MyEventListener {
                 fireBridgeEvent("event", null, eventCommand);
                 break;
             case "player_now_playing_changed":
-                mediaStateChanged();
+                coalesce(response, eventCommand);
                 break;
             case "player_state_changed":
-                playerStateChanged();
+                coalesce(response, eventCommand);
                 break;
             case "player_queue_changed":
                 break;
             case "sources_changed":
                 break;
             case "player_volume_changed":
-                volumeChanged();
+                coalesce(response, eventCommand);
                 break;
             case "groups_changed":
                 fireBridgeEvent("event", null, eventCommand);
@@ -100,7 +144,7 @@ public class HeosEventController extends MyEventListener {
         }
     }
 
-    private void eventTypePlayer() {
+    private void eventTypePlayer(HeosResponse response, String eventCommand) {
 
         switch (eventCommand) {
 
@@ -109,7 +153,7 @@ public class HeosEventController extends MyEventListener {
             case "get_player_info":
                 break;
             case "get_play_state":
-                playerStateChanged();
+                playerStateChanged(response);
                 break;
             case "get_volume":
                 break;
@@ -125,7 +169,7 @@ public class HeosEventController extends MyEventListener {
         }
     }
 
-    private void eventTypeBrowse() {
+    private void eventTypeBrowse(HeosResponse response, String eventCommand) {
 
         switch (eventCommand) {
 
@@ -137,49 +181,104 @@ public class HeosEventController extends MyEventListener {
         }
     }
 
-    private void eventTypeSystem() {
+    private void eventTypeSystem(HeosResponse response, String eventCommand) {
         switch (eventCommand) {
 
             case COM_SING_IN:
-                signIn();
+                signIn(response);
                 break;
         }
 
     }
 
-    private void eventTypeGroup() {
+    private void eventTypeGroup(HeosResponse response, String eventCommand) {
         // not implemented yet
     }
 
-    private void playerStateChanged() {
+    /*
+     * The first event of a pid and type starts the window. Further events within
+     * the window replace the stored event. The latest event is handled when the
+     * window ends.
+     */
+
+    private void coalesce(HeosResponse response, String eventCommand) {
+
+        int window = coalescingWindow;
+        if (window <= 0) {
+            handleStateEvent(response, eventCommand);
+            return;
+        }
+
+        final String key = response.getPid() + "|" + eventCommand;
+        synchronized (coalescedEvents) {
+            if (coalescedEvents.put(key, response) != null) {
+                return;
+            }
+        }
+        scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                HeosResponse latest;
+                synchronized (coalescedEvents) {
+                    latest = coalescedEvents.remove(key);
+                }
+                if (latest != null) {
+                    handleStateEvent(latest, latest.getEvent().getCommandType());
+                }
+            }
+        }, window, TimeUnit.MILLISECONDS);
+    }
+
+    private void handleStateEvent(HeosResponse response, String eventCommand) {
+
+        switch (eventCommand) {
+
+            case "player_now_playing_changed":
+                mediaStateChanged(response);
+                break;
+            case "player_state_changed":
+                playerStateChanged(response);
+                break;
+            case "player_volume_changed":
+                volumeChanged(response);
+                break;
+        }
+    }
+
+    private void playerStateChanged(HeosResponse response) {
 
         String pid = response.getPid();
         String event = "state";
-        String command = response.getEvent().getMessagesMap().get("state");
+        String command = response.getEvent().getMessages().get("state");
         fireStateEvent(pid, event, command);
     }
 
-    private void volumeChanged() {
+    private void volumeChanged(HeosResponse response) {
         String pid = response.getPid();
         String event = "volume";
-        String command = response.getEvent().getMessagesMap().get("level");
+        String command = response.getEvent().getMessages().get("level");
         fireStateEvent(pid, event, command);
         event = "mute";
-        command = response.getEvent().getMessagesMap().get("mute");
+        command = response.getEvent().getMessages().get("mute");
         fireStateEvent(pid, event, command);
 
     }
 
-    private void mediaStateChanged() {
-        String pid = response.getPid();
-        system.send(command.getNowPlayingMedia(pid));
-        fireMediaEvent(pid, response.getPayload().getPayloadList().get(0));
+    private void mediaStateChanged(HeosResponse response) {
+        final String pid = response.getPid();
+        system.sendAsync(command.getNowPlayingMedia(pid)).thenAccept(mediaResponse -> {
+            if (mediaResponse != null && mediaResponse.getPayload().getMedia() != null) {
+                fireMediaEvent(pid, mediaResponse.getPayload().getMedia());
+            }
+        });
 
     }
 
-    private void signIn() {
+    private void signIn(HeosResponse response) {
 
-        if (response.getEvent().getMessagesMap().get(COM_UNDER_PROCESS).equals(FALSE)) {
+        HeosMessage message = response.getEvent().getMessages();
+        if (message.isPresent() && !message.isCommandUnderProcess()) {
             fireBridgeEvent(EVENTTYPE_SYSTEM, SUCCESS, COM_SING_IN);
         }
     }
@@ -0,0 +1,228 @@
+package org.openhab.binding.heos.api;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.heos.resources.HeosResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HeosFadeEngine} ramps the volume of a player or group to a target
+ * level within a given time. The volume commands are paced by the
+ * {@value #STEP_INTERVAL} ms step interval and a step is only send after the
+ * former one was answered, so the player is not flooded with commands.
+ *
+ * Only one fade per player or group is running. A new fade or volume command
+ * for the same player or group cancels the running fade. A step of a fade
+ * never replaces a queued volume command of the user.
+ *
+ * If the current volume can not be read the fade is not started.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosFadeEngine {
+
+    public final static String CURVE_LINEAR = "linear";
+    public final static String CURVE_EXPONENTIAL = "exponential";
+    public final static String CURVE_S = "s-curve";
+
+    private final static int STEP_INTERVAL = 200;
+
+    private HeosSystem controller = null;
+    private ScheduledExecutorService scheduler = null;
+
+    private final ConcurrentHashMap<String, Fade> fades = new ConcurrentHashMap<String, Fade>();
+
+    private Logger logger = LoggerFactory.getLogger(HeosFadeEngine.class);
+
+    public HeosFadeEngine(HeosSystem controller, ScheduledExecutorService scheduler) {
+
+        this.controller = controller;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Starts a fade of the volume. The fade starts at the current volume
+     * of the player or group. A running fade of the player or group is cancelled.
+     *
+     * @param id the pid of the player or the gid of the group
+     * @param group true if the id is the gid of a group
+     * @param target the target volume (0 - 100)
+     * @param duration the duration of the fade in milliseconds
+     * @param curve {@link #CURVE_LINEAR}, {@link #CURVE_EXPONENTIAL} or {@link #CURVE_S}
+     * @return a future which is completed when the target volume is reached
+     *         or cancelled if the fade is cancelled
+     */
+
+    public CompletableFuture<Void> fade(String id, boolean group, int target, long duration, String curve) {
+
+        Fade fade = new Fade(id, group, Math.max(0, Math.min(100, target)), Math.max(0, duration), curve);
+        Fade former = fades.put(id, fade);
+        if (former != null) {
+            former.cancel();
+        }
+        logger.debug("Fading volume of {} to {} within {} ms ({})", id, target, duration, curve);
+        fade.begin();
+        return fade.done;
+    }
+
+    /**
+     * Cancels the running fade of the player or group. The volume
+     * stays at the level reached so far.
+     *
+     * @param id the pid of the player or the gid of the group
+     */
+
+    public void cancel(String id) {
+
+        Fade fade = fades.remove(id);
+        if (fade != null) {
+            logger.debug("Fade of {} cancelled", id);
+            fade.cancel();
+        }
+    }
+
+    public boolean isFading(String id) {
+        return fades.containsKey(id);
+    }
+
+    /*
+     * Maps the elapsed share of the fade (0 - 1) to the share of the volume change
+     */
+
+    private static double applyCurve(String curve, double progress) {
+
+        if (CURVE_EXPONENTIAL.equals(curve)) {
+            return progress * progress * progress;
+        } else if (CURVE_S.equals(curve)) {
+            return progress * progress * (3 - 2 * progress);
+        }
+        return progress;
+    }
+
+    /**
+     * A running fade of one player or group
+     */
+
+    private class Fade implements Runnable {
+
+        private final String id;
+        private final boolean group;
+        private final int target;
+        private final long duration;
+        private final String curve;
+
+        private final CompletableFuture<Void> done = new CompletableFuture<Void>();
+
+        private volatile boolean cancelled = false;
+        private int start;
+        private int lastLevel;
+        private long startTime;
+        private ScheduledFuture<?> nextStep = null;
+
+        private Fade(String id, boolean group, int target, long duration, String curve) {
+            this.id = id;
+            this.group = group;
+            this.target = target;
+            this.duration = duration;
+            this.curve = curve;
+        }
+
+        private void begin() {
+
+            String command = group ? controller.command().getGroupVolume(id) : controller.command().getVolume(id);
+            controller.sendAsync(command).thenAccept(response -> {
+                Integer level = parseLevel(response);
+                if (level == null) {
+                    logger.warn("Could not read the volume of {}. Fade to {} not started", id, target);
+                    fades.remove(id, this);
+                    done.completeExceptionally(new IOException("Volume of " + id + " could not be read"));
+                    return;
+                }
+                start = level;
+                lastLevel = start;
+                startTime = System.currentTimeMillis();
+                run();
+            });
+        }
+
+        @Override
+        public void run() {
+
+            if (cancelled) {
+                return;
+            }
+            long elapsed = System.currentTimeMillis() - startTime;
+            double progress = duration == 0 ? 1 : Math.min(1, (double) elapsed / duration);
+            final boolean finished = progress >= 1;
+            int level = (int) Math.round(start + (target - start) * applyCurve(curve, progress));
+
+            if (level == lastLevel && !finished) {
+                scheduleNextStep();
+                return;
+            }
+            lastLevel = level;
+            String value = String.valueOf(level);
+            String command = group ? controller.command().setGroupVolume(value, id)
+                    : controller.command().setVolume(value, id);
+
+            // Checked under the lock of cancel(), so no step is send after the fade was cancelled
+            CompletableFuture<HeosResponse> step;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                step = controller.sendAsync(command, true);
+            }
+            step.thenAccept(response -> {
+                if (finished) {
+                    fades.remove(id, this);
+                    done.complete(null);
+                } else {
+                    scheduleNextStep();
+                }
+            });
+        }
+
+        private synchronized void scheduleNextStep() {
+            if (!cancelled) {
+                nextStep = scheduler.schedule(this, STEP_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (nextStep != null) {
+                nextStep.cancel(false);
+            }
+            done.cancel(false);
+        }
+
+        /*
+         * Returns null if the response does not contain a valid level
+         */
+
+        private Integer parseLevel(HeosResponse response) {
+
+            if (response != null) {
+                String level = response.getEvent().getMessages().get("level");
+                if (level != null) {
+                    try {
+                        return Integer.parseInt(level);
+                    } catch (NumberFormatException e) {
+                        logger.warn("Invalid volume level '{}' of {}", level, id);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+}
@@ -2,26 +2,34 @@ package org.openhab.binding.heos.api;
 
 import static org.openhab.binding.heos.resources.HeosConstants.*;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import java.io.IOException;
-import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.openhab.binding.heos.resources.HeosBrowseItem;
 import org.openhab.binding.heos.resources.HeosCommands;
+import org.openhab.binding.heos.resources.HeosConnectionPool;
+import org.openhab.binding.heos.resources.HeosEventQueue;
 import org.openhab.binding.heos.resources.HeosGroup;
+import org.openhab.binding.heos.resources.HeosGroupInfo;
+import org.openhab.binding.heos.resources.HeosGroupRegistry;
 import org.openhab.binding.heos.resources.HeosJsonParser;
 import org.openhab.binding.heos.resources.HeosPlayer;
+import org.openhab.binding.heos.resources.HeosPlayerInfo;
 import org.openhab.binding.heos.resources.HeosResponse;
+import org.openhab.binding.heos.resources.HeosScheduler;
 import org.openhab.binding.heos.resources.HeosSendCommand;
-import org.openhab.binding.heos.resources.Telnet;
-import org.openhab.binding.heos.resources.Telnet.ReadException;
+import org.openhab.binding.heos.resources.HeosStateSnapshot;
+import org.openhab.binding.heos.resources.NioTelnet;
+import org.openhab.binding.heos.resources.NioTelnet.ReadException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,82 +38,162 @@ public class HeosSystem {
     private String connectionIP = "";
     private int connectionPort = 0;
 
-    private Telnet commandLine;
-    private Telnet eventLine;
+    private NioTelnet eventLine;
     private HeosCommands heosCommand = new HeosCommands();
-    private HeosResponse response = new HeosResponse();
-    private HeosJsonParser parser = new HeosJsonParser(response);
-    private HeosEventController eventController = new HeosEventController(response, heosCommand, this);
-    private HeosSendCommand sendCommand = new HeosSendCommand(commandLine, parser, response, eventController);
-    private HashMap<String, HeosPlayer> playerMapNew;
-    private HashMap<String, HeosGroup> groupMapNew;
-    private HashMap<String, HeosPlayer> playerMapOld;
-    private HashMap<String, HeosGroup> groupMapOld;
-    private HashMap<String, HeosGroup> removedGroupMap;
-    private HeosAPI heosApi = new HeosAPI(this, eventController);
+    private HeosJsonParser parser = new HeosJsonParser();
 
-    private Logger logger = LoggerFactory.getLogger(HeosSystem.class);
+    /*
+     * Schedules the response timeouts of the commands and handles the
+     * responses to asynchronous send commands. The blocking work of the
+     * connection manager runs on its I/O executor. Shared by all HEOS
+     * systems of the binding.
+     */
+    private final HeosScheduler scheduler;
+
+    private final HeosEventController eventController;
+    private final HeosConnectionManager connectionManager;
+    private HeosEndpointSelector endpointSelector = new HeosEndpointSelector();
 
-    boolean sendSuccess = false;
+    private final static int EVENT_QUEUE_CAPACITY = 256;
 
-    private ScheduledExecutorService keepAlive;
-    private KeepALiveRunnable keepAliveRunnable = new KeepALiveRunnable();
+    /*
+     * Events are dispatched by the scheduler so the input listener of the
+     * connection is never blocked by the handlers.
+     */
+    private final HeosEventQueue eventQueue;
+    private ExecutorService eventDispatcher = null;
 
-    private final int START_DELAY = 30;
+    private final HeosConnectionPool commandPool;
+    private final HeosSendCommand eventSendCommand;
+    private HashMap<String, HeosPlayer> playerMapNew;
+    private HashMap<String, HeosGroup> groupMapNew = new HashMap<String, HeosGroup>();
+    private HashMap<String, HeosPlayer> playerMapOld;
+    private HeosGroupRegistry groupRegistry = new HeosGroupRegistry();
+    private volatile HeosGroupRegistry.Changes groupChanges = new HeosGroupRegistry.Changes();
+    private volatile CompletableFuture<HeosStateSnapshot> stateBootstrap = null;
+    private final HeosFadeEngine fadeEngine;
+    private final HeosAPI heosApi;
+    private final HeosAsyncAPI heosAsyncApi;
+    private final HeosBatchAPI heosBatchApi;
+
+    private Logger logger = LoggerFactory.getLogger(HeosSystem.class);
 
-    private final int WAIT_TIME_AFTER_RECONNECT = 15000;
+    private final static int STATE_SNAPSHOT_MAX_AGE = 30000;
+    private final static int MAX_RETRIES = 5;
+    private final static int RETRY_DELAY = 3000;
 
-    public HeosSystem() {
+    /**
+     *
+     * @param scheduler the scheduler shared by all HEOS systems and handlers of the binding
+     */
 
+    public HeosSystem(HeosScheduler scheduler) {
+
+        this.scheduler = scheduler;
+        this.eventController = new HeosEventController(heosCommand, this, scheduler);
+        this.connectionManager = new HeosConnectionManager(this, eventController, scheduler,
+                scheduler.getIoExecutor());
+        this.eventQueue = new HeosEventQueue(eventController, scheduler, EVENT_QUEUE_CAPACITY);
+        this.commandPool = new HeosConnectionPool(parser, eventController, eventQueue, scheduler);
+        this.eventSendCommand = new HeosSendCommand(null, parser, eventController, eventQueue, scheduler);
+        this.fadeEngine = new HeosFadeEngine(this, scheduler);
+        this.heosApi = new HeosAPI(this, eventController);
+        this.heosAsyncApi = new HeosAsyncAPI(this);
+        this.heosBatchApi = new HeosBatchAPI(this);
     }
 
     /**
      * Method to be used to send a command to the HEOS system.
      *
+     * Several threads can send commands at the same time. The commands
+     * are pipelined on the command line and every thread gets the
+     * response to its own command.
+     *
      * If a ReadException is detected during reading the response
      * to the send command the method tries to send the command
      * a second time.
-     * Method returns true if sending and reading the response was
-     * successful. It returns false if either the client is not connected
+     * Method returns the response if sending and reading the response was
+     * successful. It returns null if either the client is not connected
      * or a failure during reading the response occurs.
      * A response reading failure is returned after a timeout during the
      * read command was detected. (catch by a ReadException)
      *
      * @param command the command to be send
-     * @return true if sending and reading successful
+     * @return the response to the command or {@code null}
      */
 
-    public synchronized boolean send(String command) {
+    public HeosResponse send(String command) {
+        return send(commandPool.select(command), command);
+    }
+
+    /**
+     * Sends the command without blocking the calling thread. No thread
+     * waits for the response, so a burst of commands or a command which
+     * is under process does not occupy any thread.
+     *
+     * @param command the command to be send
+     * @return a future which is completed with the response or with {@code null}
+     *         if the command could not be send
+     */
+
+    public CompletableFuture<HeosResponse> sendAsync(final String command) {
+        return sendAsync(command, false);
+    }
+
+    /**
+     * Sends the command without blocking the calling thread, see {@link #sendAsync(String)}.
+     *
+     * @param command the command to be send
+     * @param generated true if the command is generated by the binding, e.g. a step of a
+     *            volume fade. Such a command never replaces a queued command of the user.
+     * @return a future which is completed with the response or with {@code null}
+     *         if the command could not be send
+     */
+
+    public CompletableFuture<HeosResponse> sendAsync(final String command, boolean generated) {
+
+        logger.debug("Sending Command: {}", command);
+
+        return commandPool.select(command).sendAsync(command, generated).handle((response, error) -> {
+            if (error != null) {
+                logger.error("HEOS System failure during sending command '{}': {}", command, error.getMessage());
+                return null;
+            }
+            if (response == null) {
+                logger.error("Could not send message. Client is not connected");
+            }
+            return response;
+        });
+    }
+
+    private HeosResponse send(HeosSendCommand connection, String command) {
 
         logger.debug("Sending Command: {}", command);
 
         try {
-            if (sendCommand.send(command)) {
-                return true;
-            } else {
+            HeosResponse response = connection.send(command);
+            if (response == null) {
                 logger.error("Could not send message. Client is not connected");
-                return false;
             }
+            return response;
         } catch (ReadException e) {
             logger.error("HEOS System read failure during response. Message: {}", e.getMessage());
             logger.error("HEOS failed command: {}", command);
             logger.error("HEOS System trys to send command again....");
 
             try {
-                if (sendCommand.send(command)) {
-                    return true;
-                } else {
+                HeosResponse response = connection.send(command);
+                if (response == null) {
                     logger.error("Could not send message. Client is not connected");
-                    return false;
                 }
+                return response;
             } catch (ReadException | IOException e1) {
                 logger.error("HEOS System second try sending command not successful");
-                e1.printStackTrace();
             }
-            return false;
+            return null;
         } catch (IOException e) {
-            e.printStackTrace();
-            return false;
+            logger.error("HEOS System failure during sending command '{}': {}", command, e.getMessage());
+            return null;
 
         }
 
@@ -120,7 +208,7 @@ public class HeosSystem {
      */
 
     public boolean sendWithoutResponse(String command) {
-        if (sendCommand.sendWithoutResponse(command)) {
+        if (commandPool.select(command).sendWithoutResponse(command)) {
             return true;
         } else {
             logger.error("Could not send message. Client is not connected");
@@ -142,192 +230,252 @@ public class HeosSystem {
 
     /**
      * Establishes the connection to the HEOS-Network if IP and Port is
-     * set.
+     * set. The method blocks the calling thread until the connections are
+     * opened. Use {@link #startConnection(int)} to connect without blocking
+     * and to reconnect automatically.
      *
-     * @param connectionDelay if set to true system waits for 10 seconds before connecting to event line
+     * @param connectionDelay if set to true the method waits until the HEOS system
+     *            is ready to handle commands
      *
      * @return {@code true} if connection is established else returns {@code false}
      */
 
     public boolean establishConnection(boolean connectionDelay) {
+
+        if (!openConnections()) {
+            return false;
+        }
+        if (connectionDelay && !isReady()) { // Allows the Heos system to find all need things internally...
+            logger.warn("HEOS system at IP {} is connected but not ready yet", connectionIP);
+        }
+        return true;
+    }
+
+    /**
+     * Connects to the HEOS system without blocking the calling thread.
+     * The {@link HeosConnectionManager} reconnects with an increasing delay
+     * if the connection fails or gets lost and sends a heart beat to keep
+     * the connection open. Established and lost connections are reported as
+     * bridge events via the {@link HeosEventController}.
+     *
+     * @param heartBeatPulse the time in seconds between two heart beats
+     */
+
+    public void startConnection(int heartBeatPulse) {
+        connectionManager.start(heartBeatPulse);
+    }
+
+    public HeosConnectionManager.State getConnectionState() {
+        return connectionManager.getState();
+    }
+
+    /*
+     * Opens the command connections and the event line. Returns false if the
+     * first command connection or the event line could not be opened.
+     */
+
+    boolean openConnections() {
+
         this.playerMapNew = new HashMap<String, HeosPlayer>();
-        this.groupMapNew = new HashMap<String, HeosGroup>();
         this.playerMapOld = new HashMap<String, HeosPlayer>();
-        this.groupMapOld = new HashMap<String, HeosGroup>();
-        this.removedGroupMap = new HashMap<String, HeosGroup>();
-        this.commandLine = new Telnet();
-        this.eventLine = new Telnet();
+        this.eventLine = new NioTelnet();
 
         boolean connected = false;
 
         try {
-            connected = commandLine.connect(connectionIP, connectionPort);
-        } catch (SocketException e) {
-            e.getMessage().equals("Connection timed out: connect");
-            retryEstablishConnection();
+            connected = commandPool.connect(connectionIP, connectionPort);
         } catch (IOException e) {
-            System.out.println("IOException trouble connection trouble " + e.getMessage());
+            logger.warn("Could not connect HEOS command line at IP {} @ port {}: {}", connectionIP, connectionPort,
+                    e.getMessage());
+            return false;
         }
 
         if (connected) {
             logger.info("HEOS command line connected at IP {} @ port {}", connectionIP, connectionPort);
         } else {
             logger.error("Could not connect HEOS command line at IP {} @ port {}", connectionIP, connectionPort);
+            return false;
         }
 
-        sendCommand.setTelnetClient(commandLine);
-        sendSuccess = send(command().registerChangeEventOFF()); // should be their to clean up starting procedure
+        for (HeosSendCommand connection : commandPool.getConnections()) {
+            send(connection, command().registerChangeEventOFF()); // should be their to clean up starting procedure
+        }
 
         try {
             connected = eventLine.connect(connectionIP, connectionPort);
-
-        } catch (SocketException e) {
-            e.getMessage().equals("Connection timed out: connect");
-            retryEstablishConnection();
         } catch (IOException e) {
-            logger.warn("IOException rouble connection trouble " + e.getMessage());
-
-        }
-
-        if (connectionDelay) { // Allows the Heos system to find all need things internally...
-            try {
-                Thread.sleep(WAIT_TIME_AFTER_RECONNECT);
-            } catch (InterruptedException e) {
-                logger.debug("Thread.sleep interrupt during waiting time for HEOS Network");
-            }
+            logger.warn("Could not connect HEOS event line at IP {} @ port {}: {}", connectionIP, connectionPort,
+                    e.getMessage());
+            return false;
         }
 
         if (connected) {
             logger.info("HEOS event line connected at IP {} @ port {}", connectionIP, connectionPort);
         } else {
             logger.error("Could not connect HEOS event line at IP {} @ port {}", connectionIP, connectionPort);
+            return false;
         }
 
-        sendCommand.setTelnetClient(eventLine);
-        sendSuccess = send(command().registerChangeEventOFF());
-        sendCommand.setTelnetClient(commandLine);
+        eventSendCommand.setTelnetClient(eventLine);
+        send(eventSendCommand, command().registerChangeEventOFF());
 
-        if (commandLine.isConnected() && eventLine.isConnected()) {
-            return true;
-        }
-
-        return false;
+        return commandPool.getPrimaryConnection().isConnected() && eventLine.isConnected();
     }
 
-    private void retryEstablishConnection() {
+    /*
+     * After a restart the HEOS system accepts connections before it has found
+     * its players. The system is ready if it answers the heart beat and
+     * reports at least one player.
+     */
 
-        logger.error("Connection to HEOS-System timed out. Trying again....");
-        try {
-            Thread.sleep(5000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    boolean isReady() {
+
+        HeosResponse response = send(commandPool.getPrimaryConnection(), command().heartBeat());
+        if (response == null || !SUCCESS.equals(response.getEvent().getResult())) {
+            return false;
         }
+        response = send(commandPool.selectFromLane(HeosConnectionPool.BROWSE_LANE), command().getPlayers());
+        if (response == null || !SUCCESS.equals(response.getEvent().getResult())) {
+            return false;
+        }
+        addEndpoints(response);
+        return !response.getPayload().getPlayers().isEmpty();
+    }
 
-        establishConnection(true);
+    /*
+     * Every speaker serves the CLI, so the IPs of the players are
+     * the candidates for a fail over.
+     */
 
+    private void addEndpoints(HeosResponse response) {
+        for (HeosPlayerInfo player : response.getPayload().getPlayers()) {
+            endpointSelector.addCandidate(player.getIp());
+        }
     }
 
-    /**
-     * Starts the HEOS Heart Beat. This held the connection open even
-     * if no data is transmitted. If the connection to the HEOS system
-     * is lost, the method reconnects to the HEOS system by calling the
-     * {@code establishConnection()} method. If the connection is lost or
-     * reconnect the method fires a bridgeEvent via the {@code HeosEvenController.class}
-     *
-     * @see establishConnection()
-     * @see HeosEvenController.class
-     *
+    /*
+     * Switches the CLI endpoint to the fastest reachable speaker if the
+     * current endpoint is not reachable. Used before a reconnect.
      */
 
-    public void startHeartBeat(int heartBeatPulse) {
+    void selectEndpoint() {
 
-        keepAlive = Executors.newScheduledThreadPool(1);
-        keepAliveRunnable = new KeepALiveRunnable();
+        String endpoint = endpointSelector.select(connectionIP, connectionPort);
+        if (!endpoint.equals(connectionIP)) {
+            logger.warn("HEOS CLI endpoint {} not available. Failing over to speaker {} (latency {} ms)",
+                    connectionIP, endpoint, endpointSelector.getLatency(endpoint));
+            connectionIP = endpoint;
+        }
+    }
 
-        ScheduledFuture<?> keepAliveHandler = keepAlive.scheduleAtFixedRate(this.keepAliveRunnable, START_DELAY,
-                heartBeatPulse, TimeUnit.SECONDS);
+    /*
+     * True if not all command connections of the pool could be opened
+     */
 
+    boolean isDegraded() {
+        return commandPool.getConnectedCount() < commandPool.getSize();
     }
 
-    public synchronized void startEventListener() {
+    /*
+     * Sends the heart beat on every command connection. Returns false
+     * if one of the connections does not answer.
+     */
 
-        logger.info("HEOS System Event Listener is booting....");
+    boolean sendHeartBeat() {
 
-        if (sendCommand.setTelnetClient(eventLine)) {
-            sendSuccess = send(command().registerChangeEventOn());
-            logger.info("HEOS System Event Listener is starting....");
-            eventLine.startInputListener();
+        logger.debug("Sending Heos Heart Beat");
+        logger.debug("HEOS connection pool: {}", commandPool);
+        logger.debug("HEOS scheduler: {}", scheduler);
+        for (HeosSendCommand connection : commandPool.getConnections()) {
+            try {
+                if (connection.send(command().heartBeat()) == null) {
+                    return false;
+                }
+            } catch (ReadException | IOException e) {
+                logger.warn("Failure during HEOS Heart Beat command with message: {}", e.getMessage());
+                return false;
+            }
         }
+        return true;
+    }
 
-        sendCommand.setTelnetClient(commandLine);
-        logger.info("HEOS System Event Listener succsessfully started");
+    /**
+     * Registers the event line for change events. The received events
+     * are handled by the {@link HeosEventController}
+     */
 
-        eventLine.getReadResultListener().addPropertyChangeListener(new PropertyChangeListener() {
+    public void startEventListener() {
 
-            @Override
-            public void propertyChange(PropertyChangeEvent evt) {
-                parser.parseResult((String) evt.getNewValue());
-                eventController.handleEvent(1);
+        logger.info("HEOS System Event Listener is booting....");
+        registerForChangeEvents();
+    }
 
-            }
-        });
+    boolean registerForChangeEvents() {
+
+        if (send(eventSendCommand, command().registerChangeEventOn()) != null) {
+            logger.info("HEOS System Event Listener succsessfully started");
+            return true;
+        }
+        logger.error("HEOS System Event Listener could not register for change events");
+        return false;
     }
 
-    public synchronized void closeConnection() throws IOException, InterruptedException {
-        logger.info("Shutting down HEOS Heart Beat");
-        keepAlive.shutdown();
-        if (eventLine.isConnected()) {
-
-            if (eventLine.isConnectionAlive()) {
-                logger.info("Stopping HEOS event line listener");
-                eventLine.stopInputListener();
-                sendCommand.setTelnetClient(eventLine);
-                send(command().registerChangeEventOFF());
-                try {
-                    Thread.sleep(300);
-                } catch (InterruptedException e) {
-                    System.out.println(e.getMessage());
-                    e.printStackTrace();
-                }
-                sendCommand.setTelnetClient(commandLine);
-                logger.info("Disconnecting HEOS event line");
+    /*
+     * Closes the event line and the command connections without
+     * unregistering from the change events
+     */
+
+    void closeConnections() {
+
+        if (eventLine != null && eventLine.isConnected()) {
+            try {
                 eventLine.disconnect();
-                logger.info("Disconnecting HEOS command line");
-                commandLine.disconnect();
+            } catch (IOException e) {
+                logger.debug("Could not close HEOS event line: {}", e.getMessage());
             }
-
-            logger.info("Connection to HEOS system closed");
         }
+        commandPool.disconnect();
+    }
 
+    public synchronized void closeConnection() throws IOException, InterruptedException {
+        logger.info("Stopping HEOS connection manager");
+        connectionManager.stop();
+        if (eventLine != null && eventLine.isConnected() && eventLine.isConnectionAlive()) {
+            logger.info("Stopping HEOS event line listener");
+            send(eventSendCommand, command().registerChangeEventOFF());
+        }
+        logger.info("Disconnecting HEOS event and command lines");
+        closeConnections();
+        stopEventDispatcher();
+        logger.info("Connection to HEOS system closed");
     }
 
     /**
-     * This method update the current state of the HEOS Player
-     * like the play state title and so on. This method updates all
+     * This method fetches the current state of the HEOS Player
+     * like the play state title and so on. This method fetches all
      * states and shall be used for initialization only. For ongoing
      * updates use the eventListener
      *
+     * The method does not block, so it can be called by a scheduler thread.
+     *
      * @param pid Player PID from the player
-     * @return a HEOS Player with the updated states
+     * @return a future completed with the HEOS Player with the updated states
+     *         or with {@code null} if the player is not available
      *
      */
 
-    public synchronized HeosPlayer getPlayerState(String pid) {
-        send(command().getPlayerInfo(pid));
-        while (response.getEvent().getResult().equals(FAIL)) {
-            try {
-                logger.warn("HEOS System waiting for player with PID: '{}' to be available", pid);
-                Thread.sleep(3000);
-                send(command().getPlayerInfo(pid));
+    public CompletableFuture<HeosPlayer> fetchPlayerState(String pid) {
 
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        return sendWithRetry(command().getPlayerInfo(pid), "player", pid, 0).thenCompose(response -> {
+            if (response == null) {
+                return CompletableFuture.completedFuture(null);
             }
-        }
-        HeosPlayer heosPlayer = new HeosPlayer();
-        heosPlayer.updatePlayerInfo(response.getPayload().getPayloadList().get(0));
-        heosPlayer = updatePlayerState(heosPlayer);
-        return heosPlayer;
+            HeosPlayer heosPlayer = new HeosPlayer();
+            if (!response.getPayload().getPlayers().isEmpty()) {
+                heosPlayer.updatePlayerInfo(response.getPayload().getPlayers().get(0));
+            }
+            return fetchPlayerState(heosPlayer);
+        });
     }
 
     /**
@@ -335,23 +483,22 @@ public class HeosSystem {
      * all player found on the network after an connection to the system is
      * established via a bridge.
      *
-     * @return a HashMap with all HEOS Player in the network
+     * @return a HashMap with all HEOS Player in the network or {@code null} if the players could not be fetched
      */
 
     public synchronized HashMap<String, HeosPlayer> getAllPlayer() {
 
-        send(command().getPlayers());
-        boolean resultIsEmpty = response.getPayload().getPayloadList().isEmpty();
-
-        while (resultIsEmpty) {
-            send(command().getPlayers());
-            resultIsEmpty = response.getPayload().getPayloadList().isEmpty();
+        HeosResponse response = send(command().getPlayers());
+        if (response == null) {
+            return null;
+        }
+        if (response.getPayload().getPlayers().isEmpty()) {
             logger.warn("HEOS System found no players.");
         }
+        addEndpoints(response);
 
-        List<HashMap<String, String>> playerList = response.getPayload().getPayloadList();
-
-        for (HashMap<String, String> player : playerList) {
+        playerMapNew.clear(); // only the players currently reported are kept
+        for (HeosPlayerInfo player : response.getPayload().getPlayers()) {
             HeosPlayer heosPlayer = new HeosPlayer();
             heosPlayer.updatePlayerInfo(player);
             playerMapNew.put(heosPlayer.getPid(), heosPlayer);
@@ -362,171 +509,339 @@ public class HeosSystem {
 
     }
 
-    private synchronized HeosPlayer updatePlayerState(HeosPlayer heosPlayer) {
+    /*
+     * Sends the state commands of the player at once. The commands are pipelined
+     * on the command line, so the player costs one round trip instead of four.
+     */
+
+    private CompletableFuture<HeosPlayer> fetchPlayerState(final HeosPlayer heosPlayer) {
 
         String pid = heosPlayer.getPid();
-        send(command().getPlayState(pid));
-        heosPlayer.setState(response.getEvent().getMessagesMap().get("state"));
-        send(command().getMute(pid));
-        heosPlayer.setMute(response.getEvent().getMessagesMap().get("state"));
-        send(command().getVolume(pid));
-        heosPlayer.setLevel(response.getEvent().getMessagesMap().get("level"));
-        send(command().getNowPlayingMedia(pid));
-        heosPlayer.updateMediaInfo(response.getPayload().getPayloadList().get(0));
+        CompletableFuture<Void> state = sendAsync(command().getPlayState(pid))
+                .thenAccept(response -> heosPlayer.setState(getMessageValue(response, "state")));
+        CompletableFuture<Void> mute = sendAsync(command().getMute(pid))
+                .thenAccept(response -> heosPlayer.setMute(getMessageValue(response, "state")));
+        CompletableFuture<Void> level = sendAsync(command().getVolume(pid))
+                .thenAccept(response -> heosPlayer.setLevel(getMessageValue(response, "level")));
+        CompletableFuture<Void> media = sendAsync(command().getNowPlayingMedia(pid)).thenAccept(response -> {
+            if (response != null && response.getPayload().getMedia() != null) {
+                heosPlayer.updateMediaInfo(response.getPayload().getMedia());
+            }
+        });
 
-        return heosPlayer;
+        return CompletableFuture.allOf(state, mute, level, media).thenApply(done -> heosPlayer);
     }
 
-    /**
-     * This method searches for all groups which are on the HEOS network
-     * and returns a {@code HashMap<String gid, HeosGroup heosGroup>}.
-     * Before calling this method a connection via a bridge has to be
-     * established
-     *
-     * @return a HashMap with all HEOS groups
+    /*
+     * During start up sometimes the system has not collected all information
+     * and sends a failure. The command is send again up to MAX_RETRIES times,
+     * each retry is scheduled RETRY_DELAY ms later. The future is completed
+     * with null if the system is not connected or the command still fails.
      */
 
-    public synchronized HashMap<String, HeosGroup> getGroups() {
-        groupMapNew.clear();
+    private CompletableFuture<HeosResponse> sendWithRetry(final String command, final String type, final String id,
+            final int retry) {
 
-        send(command().getGroups());
+        return sendAsync(command).thenCompose(response -> {
+            if (response != null && response.getEvent().getResult().equals(FAIL) && retry < MAX_RETRIES) {
+                logger.warn("HEOS System waiting for {} with ID: '{}' to be available", type, id);
+                final CompletableFuture<HeosResponse> retried = new CompletableFuture<HeosResponse>();
+                scheduler.schedule(new Runnable() {
 
-        if (response.getPayload().getPayloadList().isEmpty()) {
-            groupMapNew.clear();
-            removedGroupMap = compareMaps(groupMapNew, groupMapOld);
-            groupMapOld.putAll(groupMapNew);
-            return groupMapNew;
+                    @Override
+                    public void run() {
+                        sendWithRetry(command, type, id, retry + 1).thenAccept(retried::complete);
+                    }
+                }, RETRY_DELAY, TimeUnit.MILLISECONDS);
+                return retried;
+            }
+            if (response == null || response.getEvent().getResult().equals(FAIL)) {
+                logger.warn("HEOS System could not get the {} with ID: '{}'", type, id);
+                return CompletableFuture.completedFuture(null);
+            }
+            return CompletableFuture.completedFuture(response);
+        });
+    }
+
+    private CompletableFuture<HeosGroup> fetchGroupState(final HeosGroup heosGroup) {
+
+        String gid = heosGroup.getGid();
+        CompletableFuture<Void> state = sendAsync(command().getPlayState(gid))
+                .thenAccept(response -> heosGroup.setState(getMessageValue(response, "state")));
+        CompletableFuture<Void> mute = sendAsync(command().getGroupMute(gid))
+                .thenAccept(response -> heosGroup.setMute(getMessageValue(response, "state")));
+        CompletableFuture<Void> level = sendAsync(command().getGroupVolume(gid))
+                .thenAccept(response -> heosGroup.setLevel(getMessageValue(response, "level")));
+        CompletableFuture<Void> media = sendAsync(command().getNowPlayingMedia(gid)).thenAccept(response -> {
+            if (response != null && response.getPayload().getMedia() != null) {
+                heosGroup.updateMediaInfo(response.getPayload().getMedia());
+            }
+        });
+
+        return CompletableFuture.allOf(state, mute, level, media).thenApply(done -> heosGroup);
+    }
+
+    /*
+     * Returns the value of the key from the response message
+     */
+
+    private String getMessageValue(HeosResponse response, String key) {
+        if (response == null) {
+            return null;
         }
+        return response.getEvent().getMessages().get(key);
+    }
 
-        List<HashMap<String, String>> groupList = response.getPayload().getPayloadList();
-        int groupCounter = 0;
+    /**
+     * Fetches the states of all players and groups at once. All commands
+     * are send without waiting for the former responses, so the bootstrap
+     * takes a few round trips independent of the number of players.
+     *
+     * The progress is logged. The returned future is completed with the
+     * snapshot of all states when every player and group is fetched.
+     * Players or groups which could not be fetched are not part of the snapshot.
+     *
+     * @return a future completed with the states of all players and groups
+     */
 
-        for (HashMap<String, String> group : groupList) {
-            HeosGroup heosGroup = new HeosGroup();
-            heosGroup.updateGroupInfo(group);
-            heosGroup.updateGroupPlayers(response.getPayload().getPlayerList().get(groupCounter));
+    public CompletableFuture<HeosStateSnapshot> bootstrapStates() {
 
-            logger.info("Found: Group {} with {} Players", heosGroup.getName(),
-                    response.getPayload().getPlayerList().get(groupCounter).size());
+        final CompletableFuture<HeosResponse> playersResponse = sendAsync(command().getPlayers());
+        final CompletableFuture<HeosResponse> groupsResponse = sendAsync(command().getGroups());
 
-            int playerCount = response.getPayload().getPlayerList().get(groupCounter).size();
+        CompletableFuture<HeosStateSnapshot> bootstrap = playersResponse.thenCombine(groupsResponse,
+                (players, groups) -> {
+                    List<CompletableFuture<HeosPlayer>> playerStates = new ArrayList<CompletableFuture<HeosPlayer>>();
+                    List<CompletableFuture<HeosGroup>> groupStates = new ArrayList<CompletableFuture<HeosGroup>>();
+                    int total = (players == null ? 0 : players.getPayload().getPlayers().size())
+                            + (groups == null ? 0 : groups.getPayload().getGroups().size());
+                    AtomicInteger fetched = new AtomicInteger();
 
-            // Defining the Group leader
+                    logger.info("HEOS state bootstrap started for {} players and groups", total);
 
-            for (int i = 0; i < playerCount; i++) {
-                HashMap<String, String> playerMap = new HashMap<>();
-                playerMap = response.getPayload().getPlayerList().get(groupCounter).get(i);
-                for (String key : playerMap.keySet()) {
-                    if (key.equals("role")) {
-                        if (playerMap.get(key).equals("leader")) {
-                            String leader = playerMap.get("pid");
-                            heosGroup.setLeader(leader);
+                    if (players != null) {
+                        addEndpoints(players);
+                        for (HeosPlayerInfo info : players.getPayload().getPlayers()) {
+                            HeosPlayer heosPlayer = new HeosPlayer();
+                            heosPlayer.updatePlayerInfo(info);
+                            playerStates.add(fetchPlayerState(heosPlayer)
+                                    .whenComplete((player, error) -> reportProgress(fetched, total)));
+                        }
+                    }
+                    if (groups != null) {
+                        for (HeosGroupInfo info : groups.getPayload().getGroups()) {
+                            HeosGroup heosGroup = new HeosGroup();
+                            heosGroup.updateGroupInfo(info);
+                            groupStates.add(fetchGroupState(heosGroup)
+                                    .whenComplete((group, error) -> reportProgress(fetched, total)));
                         }
                     }
+                    return createSnapshot(playerStates, groupStates);
+                }).thenCompose(snapshot -> snapshot);
+
+        stateBootstrap = bootstrap;
+        return bootstrap;
+    }
+
+    private void reportProgress(AtomicInteger fetched, int total) {
+        logger.info("HEOS state bootstrap: {} of {} players and groups fetched", fetched.incrementAndGet(), total);
+    }
+
+    private CompletableFuture<HeosStateSnapshot> createSnapshot(final List<CompletableFuture<HeosPlayer>> playerStates,
+            final List<CompletableFuture<HeosGroup>> groupStates) {
+
+        List<CompletableFuture<?>> all = new ArrayList<CompletableFuture<?>>(playerStates);
+        all.addAll(groupStates);
+
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[all.size()])).handle((done, error) -> {
+            HashMap<String, HeosPlayer> players = new HashMap<String, HeosPlayer>();
+            HashMap<String, HeosGroup> groups = new HashMap<String, HeosGroup>();
+            for (CompletableFuture<HeosPlayer> state : playerStates) {
+                if (!state.isCompletedExceptionally()) {
+                    HeosPlayer heosPlayer = state.join();
+                    players.put(heosPlayer.getPid(), heosPlayer);
                 }
             }
+            for (CompletableFuture<HeosGroup> state : groupStates) {
+                if (!state.isCompletedExceptionally()) {
+                    HeosGroup heosGroup = state.join();
+                    groups.put(heosGroup.getGid(), heosGroup);
+                }
+            }
+            logger.info("HEOS state bootstrap finished with {} players and {} groups", players.size(),
+                    groups.size());
+            return new HeosStateSnapshot(players, groups);
+        });
+    }
+
+    /**
+     *
+     * @return true if the states of the players and groups are currently fetched
+     *         by {@link #bootstrapStates()}
+     */
 
-            // groupMapNew.put(heosGroup.getGid(), heosGroup);
-            // Switched to NameHash value
-            // System.out.println(heosGroup.getNameHash());
-            groupMapNew.put(heosGroup.getNameHash(), heosGroup);
-            removedGroupMap = compareMaps(groupMapNew, groupMapOld);
-            groupMapOld.clear(); // clear the old map so that only the currently available groups are added in the next
-                                 // step.
-            groupMapOld.putAll(groupMapNew);
-            groupCounter++;
+    public boolean isStateBootstrapRunning() {
+        CompletableFuture<HeosStateSnapshot> bootstrap = stateBootstrap;
+        return bootstrap != null && !bootstrap.isDone();
+    }
 
+    /**
+     *
+     * @return the snapshot of the last state bootstrap or {@code null} if no
+     *         bootstrap finished within the last {@value #STATE_SNAPSHOT_MAX_AGE} ms
+     */
+
+    public HeosStateSnapshot getStateSnapshot() {
+        CompletableFuture<HeosStateSnapshot> bootstrap = stateBootstrap;
+        if (bootstrap == null || !bootstrap.isDone() || bootstrap.isCompletedExceptionally()) {
+            return null;
         }
+        HeosStateSnapshot snapshot = bootstrap.join();
+        if (System.currentTimeMillis() - snapshot.getTimestamp() > STATE_SNAPSHOT_MAX_AGE) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * This method searches for all groups which are on the HEOS network
+     * and returns a {@code HashMap<String nameHash, HeosGroup heosGroup>}.
+     * The groups are updated within the group registry, the groups which
+     * were removed since the last call are returned by {@link #getGroupsRemoved()}.
+     * Before calling this method a connection via a bridge has to be
+     * established
+     *
+     * @return a HashMap with all HEOS groups or {@code null} if the groups could not be fetched
+     */
+
+    public synchronized HashMap<String, HeosGroup> getGroups() {
+
+        HeosResponse response = send(command().getGroups());
+        if (response == null) {
+            return null;
+        }
+
+        List<HeosGroup> groups = new ArrayList<HeosGroup>(response.getPayload().getGroups().size());
+        for (HeosGroupInfo group : response.getPayload().getGroups()) {
+            HeosGroup heosGroup = new HeosGroup();
+            heosGroup.updateGroupInfo(group);
+            groups.add(heosGroup);
 
+            logger.info("Found: Group {} with {} Players", heosGroup.getName(), group.getMembers().size());
+        }
+
+        groupChanges = groupRegistry.update(groups);
+        if (!groupChanges.isEmpty()) {
+            logger.info("HEOS groups changed: {}", groupChanges);
+        }
+        groupMapNew = groupRegistry.getGroups();
         return groupMapNew;
 
     }
 
     /**
-     * This method update the current state of the HEOS Group
-     * like the play state title and so on. This method updates all
+     * This method fetches the current state of the HEOS Group
+     * like the play state title and so on. This method fetches all
      * states and shall be used for initialization only. For ongoing
      * updates use the eventListener
      *
+     * The method does not block, so it can be called by a scheduler thread.
+     *
      * @param gid Group GID from the group
-     * @return a HEOS group with the updated states
+     * @return a future completed with the HEOS group with the updated states
+     *         or with {@code null} if the group is not available
      *
      */
 
-    public synchronized HeosGroup getGroupState(String gid) {
-
-        HeosGroup heosGroup = new HeosGroup();
-        send(command().getGroupInfo(gid));
+    public CompletableFuture<HeosGroup> fetchGroupState(final String gid) {
 
-        // During start up sometimes the system has not collected all information
-        // and sends a failure.
+        return sendWithRetry(command().getGroupInfo(gid), "group", gid, 0).thenCompose(response -> {
+            if (response == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            HeosGroup heosGroup = new HeosGroup();
+            if (!response.getPayload().getGroups().isEmpty()) {
+                heosGroup.updateGroupInfo(response.getPayload().getGroups().get(0));
+            }
+            if (heosGroup.getGid() == null) {
+                heosGroup.setGid(gid);
+            }
+            return fetchGroupState(heosGroup);
+        });
+    }
 
-        while (response.getEvent().getResult().equals(FAIL)) {
-            try {
-                logger.warn("HEOS System waiting for group with PID: '{}' to be available", gid);
-                Thread.sleep(3000);
-                send(command().getGroupInfo(gid));
+    /**
+     * Can be used to fill the group registry at startup with existing
+     * HEOS groups, so they are reported as removed if they do not exist
+     * any longer.
+     *
+     * @param map a HashMap with {@code heosGroup.getNameHash(), heosGroup}
+     */
 
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    public void addHeosGroupToOldGroupMap(HashMap<String, HeosGroup> map) {
+        for (HeosGroup heosGroup : map.values()) {
+            groupRegistry.register(heosGroup);
         }
+    }
 
-        heosGroup.updateGroupInfo(response.getPayload().getPayloadList().get(0));
-        heosGroup.updateGroupPlayers((response.getPayload().getPlayerList().get(0)));
-        send(command().getPlayState(gid));
-        heosGroup.setState(response.getEvent().getMessagesMap().get("state"));
-        send(command().getGroupMute(gid));
-        heosGroup.setMute(response.getEvent().getMessagesMap().get("state"));
-        send(command().getGroupVolume(gid));
-        heosGroup.setLevel(response.getEvent().getMessagesMap().get("level"));
-        send(command().getNowPlayingMedia(gid));
-        heosGroup.updateMediaInfo(response.getPayload().getPayloadList().get(0));
+    /**
+     *
+     * @return the groups which were added, removed or changed with the last call of {@link #getGroups()}
+     */
 
-        return heosGroup;
+    public HeosGroupRegistry.Changes getGroupChanges() {
+        return groupChanges;
     }
 
-    private HashMap<String, HeosGroup> compareMaps(HashMap<String, HeosGroup> mapNew,
-            HashMap<String, HeosGroup> mapOld) {
-
-        HashMap<String, HeosGroup> removedItems = new HashMap<String, HeosGroup>();
-        for (String key : mapOld.keySet()) {
-            if (!mapNew.containsKey(key)) {
-                removedItems.put(key, mapOld.get(key));
+    /**
+     *
+     * @param gid the gid of the group
+     * @return the group found by the last call of {@link #getGroups()} or {@code null}
+     */
 
-            }
+    public HeosGroup getGroupByGid(String gid) {
+        return groupRegistry.getByGid(gid);
+    }
 
-        }
+    /**
+     *
+     * @param pid the pid of the player
+     * @return the group the player is member of or {@code null} if the player is not grouped
+     */
 
-        return removedItems;
+    public HeosGroup getGroupOfPlayer(String pid) {
+        return groupRegistry.getGroupOfPlayer(pid);
     }
 
     /**
-     * Can be used to fill the map which contains old Groups at startup
-     * with existing HEOS groups.
      *
-     *
-     * @param map a HashMap with {@code heosGroup.getNameHash(), heosGroup}
+     * @param pids the pids of the players in any order
+     * @return the group with exactly these players as members or {@code null}
      */
 
-    public void addHeosGroupToOldGroupMap(HashMap<String, HeosGroup> map) {
-        groupMapOld.putAll(map);
-
+    public HeosGroup getGroupByMembers(Collection<String> pids) {
+        return groupRegistry.getByMemberHash(HeosGroup.memberHashOf(pids));
     }
 
-    public List<HashMap<String, String>> getFavorits() {
+    public List<HeosBrowseItem> getFavorits() {
 
-        send(command().BrowseSource(FAVORIT_SID));
-        return response.getPayload().getPayloadList();
+        HeosResponse response = send(command().BrowseSource(FAVORIT_SID));
+        if (response == null) {
+            return new ArrayList<HeosBrowseItem>();
+        }
+        return response.getPayload().getBrowseItems();
 
     }
 
     public List<String> getPlaylists() {
         List<String> playlistsList = new ArrayList<String>();
-        send(command().BrowseSource(PLAYLISTS_SID));
-        List<HashMap<String, String>> payload = response.getPayload().getPayloadList();
+        HeosResponse response = send(command().BrowseSource(PLAYLISTS_SID));
+        if (response == null) {
+            return playlistsList;
+        }
+        List<HeosBrowseItem> payload = response.getPayload().getBrowseItems();
         for (int i = 0; i < payload.size(); i++) {
-            playlistsList.add(payload.get(i).get(CID));
+            playlistsList.add(payload.get(i).getCid());
         }
         return playlistsList;
 
@@ -536,90 +851,142 @@ public class HeosSystem {
         return heosApi;
     }
 
-    public String getConnectionIP() {
-        return connectionIP;
+    public HeosAsyncAPI getAsyncAPI() {
+        return heosAsyncApi;
     }
 
-    public void setConnectionIP(String connectionIP) {
-        this.connectionIP = connectionIP;
+    public HeosBatchAPI getBatchAPI() {
+        return heosBatchApi;
     }
 
-    public int getConnectionPort() {
-        return connectionPort;
+    public HeosFadeEngine getFadeEngine() {
+        return fadeEngine;
     }
 
-    public void setConnectionPort(int connectionPort) {
-        this.connectionPort = connectionPort;
-    }
+    /**
+     *
+     * @return the scheduler shared by the HEOS systems and handlers of the binding
+     */
 
-    public HashMap<String, HeosPlayer> getPlayerMap() {
-        return playerMapNew;
+    public HeosScheduler getScheduler() {
+        return scheduler;
     }
 
-    public HashMap<String, HeosGroup> getGroupMap() {
-        return groupMapNew;
-    }
+    /**
+     * Commands which block the caller, e.g. {@link #send(String)}, shall be
+     * send by this executor and not by the scheduler.
+     *
+     * @return the executor for work which blocks on the network
+     */
 
-    public HashMap<String, HeosGroup> getGroupsRemoved() {
-        return removedGroupMap;
+    public ExecutorService getIoExecutor() {
+        return scheduler.getIoExecutor();
     }
 
     /**
-     * A class which provides a runnable for the HEOS Heart Beat
+     * Sets the time window in which high frequent state events
+     * of a player are coalesced.
      *
-     * @author Johannes
+     * @param window the window in milliseconds. 0 disables coalescing
+     */
+
+    public void setEventCoalescingWindow(int window) {
+        eventController.setCoalescingWindow(window);
+    }
+
+    /**
+     * Selects the thread which hands the received events to the handlers.
+     * A dedicated thread keeps slow handlers from occupying the threads of
+     * the shared scheduler. The dedicated thread is stopped when the
+     * connection is closed.
      *
+     * @param dedicated true for a dedicated thread of this HEOS system,
+     *            false for the threads of the shared scheduler
      */
 
-    public class KeepALiveRunnable implements Runnable {
+    public synchronized void setDedicatedEventDispatcher(boolean dedicated) {
 
-        @Override
-        public void run() {
-            try {
+        if (dedicated && eventDispatcher == null) {
+            eventDispatcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
 
-                if (sendCommand.isConnectionAlive()) {
-                    logger.debug("Sending Heos Heart Beat");
-                    if (!sendCommand.send(command().heartBeat())) {
-                        logger.error("Connection to HEOS Network lost!");
-                        restartConnection();
-                    }
-                } else {
-                    logger.error("Connection to HEOS Network lost!");
-                    restartConnection();
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "heos-event");
+                    thread.setDaemon(true);
+                    return thread;
                 }
+            });
+            eventQueue.setDispatchExecutor(eventDispatcher);
+        } else if (!dedicated) {
+            stopEventDispatcher();
+        }
+    }
 
-                // catches a failure during a heart beat send message if connection was
-                // getting lost between last Heart Beat but Bridge is online again and not
-                // detected by isConnectionAlive()
-
-            } catch (ReadException | IOException e) {
-                logger.error("Failure during HEOS Heart Beat command with message: {}", e.getMessage());
-                e.printStackTrace();
-                restartConnection();
-            }
+    private synchronized void stopEventDispatcher() {
 
+        eventQueue.setDispatchExecutor(scheduler);
+        if (eventDispatcher != null) {
+            eventDispatcher.shutdown();
+            eventDispatcher = null;
         }
+    }
 
-        private void restartConnection() {
-            try {
-                closeConnection();
-                eventController.connectionToSystemLost();
+    /**
+     * Sets the number of command connections to the HEOS bridge.
+     * Used with the next call of {@link #establishConnection(boolean)}.
+     *
+     * @param size the number of command connections
+     */
 
-                while (!sendCommand.isConnectionAlive()) {
-                    logger.error("Trying to reconnect to HEOS Network...");
-                    Thread.sleep(5000);
-                }
-                logger.error("Reconnecting to Bridge with IP {} @ port {}", connectionIP, connectionPort);
-                Thread.sleep(15000); // Waiting time is needed because System needs some time to start up
-                eventController.connectionToSystemRestored();
+    public void setCommandConnections(int size) {
+        commandPool.setSize(size);
+    }
 
-            } catch (IOException | InterruptedException e) {
-                logger.error("Failure during HEOS Heart Beat command with message: {}", e.getMessage());
-                e.printStackTrace();
-            }
+    /**
+     *
+     * @return the pool of command connections, e.g. to read its metrics
+     */
 
-        }
+    public HeosConnectionPool getCommandPool() {
+        return commandPool;
+    }
+
+    public String getConnectionIP() {
+        return connectionIP;
+    }
+
+    public void setConnectionIP(String connectionIP) {
+        this.connectionIP = connectionIP;
+        endpointSelector.addCandidate(connectionIP);
+    }
+
+    /**
+     *
+     * @return the speakers known as CLI endpoints for a fail over
+     */
 
+    public HeosEndpointSelector getEndpointSelector() {
+        return endpointSelector;
+    }
+
+    public int getConnectionPort() {
+        return connectionPort;
+    }
+
+    public void setConnectionPort(int connectionPort) {
+        this.connectionPort = connectionPort;
+    }
+
+    public HashMap<String, HeosPlayer> getPlayerMap() {
+        return playerMapNew;
+    }
+
+    public HashMap<String, HeosGroup> getGroupMap() {
+        return groupMapNew;
+    }
+
+    public HashMap<String, HeosGroup> getGroupsRemoved() {
+        return new HashMap<String, HeosGroup>(groupChanges.getRemoved());
     }
 
 }
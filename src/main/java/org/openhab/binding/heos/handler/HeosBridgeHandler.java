@@ -15,9 +15,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.smarthome.config.discovery.DiscoveryListener;
 import org.eclipse.smarthome.config.discovery.DiscoveryResult;
@@ -37,11 +37,17 @@ import org.eclipse.smarthome.core.thing.binding.builder.ThingBuilder;
 import org.eclipse.smarthome.core.thing.type.ChannelTypeUID;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.heos.api.HeosAPI;
+import org.openhab.binding.heos.api.HeosBatchAPI;
 import org.openhab.binding.heos.api.HeosSystem;
 import org.openhab.binding.heos.internal.discovery.HeosPlayerDiscovery;
+import org.openhab.binding.heos.resources.HeosBatchResult;
+import org.openhab.binding.heos.resources.HeosBrowseItem;
 import org.openhab.binding.heos.resources.HeosEventListener;
+import org.openhab.binding.heos.resources.HeosMediaInfo;
 import org.openhab.binding.heos.resources.HeosGroup;
+import org.openhab.binding.heos.resources.HeosGroupRegistry;
 import org.openhab.binding.heos.resources.HeosPlayer;
+import org.openhab.binding.heos.resources.HeosStateSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,24 +61,24 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
 
     private List<String> heosPlaylists = new ArrayList<String>();
 
-    private HashMap<ThingUID, ThingHandler> handlerList = new HashMap<>();
+    /*
+     * Changed by the framework when a child handler is initialized or disposed
+     * and read by the scheduler when the state bootstrap is published
+     */
+    private Map<ThingUID, ThingHandler> handlerList = new ConcurrentHashMap<>();
     private HashMap<String, String> selectedPlayer = new HashMap<String, String>();
-    private HashMap<ThingUID, ThingStatus> thingOnlineState = new HashMap();
-
-    private ScheduledExecutorService initPhase;
-    private InitProcedure initPhaseRunnable = new InitProcedure();
+    private Map<ThingUID, ThingStatus> thingOnlineState = new ConcurrentHashMap<>();
 
     private HeosPlayerDiscovery playerDiscovery;
     private HeosSystem heos;
     private HeosAPI api;
+    private HeosBatchAPI batchApi;
 
     private int heartBeatPulse = 0;
 
     private boolean isRegisteredForChangeEvents = false;
-    private boolean bridgeIsConnected = false;
     private boolean handleGroups = false;
     private boolean loggedIn = false;
-    private boolean connectionDelay = false;
 
     private Logger logger = LoggerFactory.getLogger(HeosBridgeHandler.class);
 
@@ -80,6 +86,7 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
         super(thing);
         this.heos = heos;
         this.api = api;
+        this.batchApi = heos.getBatchAPI();
 
     }
 
@@ -99,12 +106,10 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
         if (channel.getChannelTypeUID().toString().equals("heos:ch_favorit")) {
             if (command.toString().equals("ON")) {
                 if (!selectedPlayer.isEmpty()) {
-                    for (String key : selectedPlayer.keySet()) {
-                        String pid = key;
-                        String mid = channelUID.getId();
-                        api.playStation(pid, FAVORIT_SID, null, mid, null);
-                        updateState(channelUID, OnOffType.OFF);
-                    }
+                    String mid = channelUID.getId();
+                    logFailures("favorite " + mid, batchApi.playStation(new ArrayList<String>(selectedPlayer.keySet()),
+                            FAVORIT_SID, null, mid, null));
+                    updateState(channelUID, OnOffType.OFF);
                 }
                 selectedPlayer.clear();
             }
@@ -113,11 +118,9 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
         if (channelUID.getId().equals(CH_ID_PLAYLISTS)) {
             logger.debug("Start Playlist with {}", command.toString());
             if (!selectedPlayer.isEmpty()) {
-                for (String key : selectedPlayer.keySet()) {
-                    String pid = key;
-                    String cid = heosPlaylists.get(Integer.valueOf(command.toString()));
-                    api.addContainerToQueuePlayNow(pid, PLAYLISTS_SID, cid);
-                }
+                String cid = heosPlaylists.get(Integer.valueOf(command.toString()));
+                logFailures("playlist " + cid, batchApi
+                        .addContainerToQueuePlayNow(new ArrayList<String>(selectedPlayer.keySet()), PLAYLISTS_SID, cid));
             }
             selectedPlayer.clear();
         }
@@ -125,14 +128,7 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
         if (channelUID.getId().equals(CH_ID_BUILDGROUP)) {
             if (command.toString().equals("ON")) {
                 if (!selectedPlayer.isEmpty()) {
-                    String[] player = new String[selectedPlayer.size()];
-                    int i = 0;
-                    for (String key : selectedPlayer.keySet()) {
-                        player[i] = key;
-                        ++i;
-                    }
-
-                    api.groupPlayer(player);
+                    buildGroup(new ArrayList<String>(selectedPlayer.keySet()));
 
                     for (String key : selectedPlayer.keySet()) {
                         updateState(selectedPlayer.get(key), OnOffType.OFF);
@@ -158,55 +154,73 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
         }
     }
 
+    private void logFailures(final String action, CompletableFuture<HeosBatchResult> batch) {
+
+        batch.thenAccept(result -> {
+            if (!result.isAllSuccessful()) {
+                logger.warn("HEOS {} failed for players {}", action, result.getFailed());
+            }
+        });
+    }
+
     @Override
     public synchronized void initialize() {
-        if (bridgeIsConnected == true) {
-            return;
-        }
         loggedIn = false;
 
         logger.info("Initit Brige '{}' with IP '{}'", thing.getConfiguration().get(NAME),
                 thing.getConfiguration().get(HOST));
 
         heartBeatPulse = Integer.valueOf(thing.getConfiguration().get(HEART_BEAT).toString());
+        if (thing.getConfiguration().get(COMMAND_CONNECTIONS) != null) {
+            heos.setCommandConnections(
+                    Integer.valueOf(thing.getConfiguration().get(COMMAND_CONNECTIONS).toString().trim()));
+        }
+        if (thing.getConfiguration().get(EVENT_COALESCING) != null) {
+            heos.setEventCoalescingWindow(
+                    Integer.valueOf(thing.getConfiguration().get(EVENT_COALESCING).toString().trim()));
+        }
+        if (thing.getConfiguration().get(EVENT_DISPATCHER) != null) {
+            String dispatcher = thing.getConfiguration().get(EVENT_DISPATCHER).toString().trim();
+            heos.setDedicatedEventDispatcher(EVENT_DISPATCHER_DEDICATED.equals(dispatcher));
+        }
         heos.setConnectionIP(thing.getConfiguration().get(HOST).toString());
         heos.setConnectionPort(1255);
-        bridgeIsConnected = heos.establishConnection(connectionDelay); // the connectionDelay gives the HEOS time to
-                                                                       // recover after a restart
-        while (!bridgeIsConnected) {
-            try {
-                heos.closeConnection();
-            } catch (IOException | InterruptedException e) {
-                logger.error("Unable to close connection to HEOS System. Message: {}", e.getMessage());
-                e.printStackTrace();
-            }
-            bridgeIsConnected = heos.establishConnection(connectionDelay);
-            logger.error("Could not initialize connection to HEOS system");
-        }
 
         if (!isRegisteredForChangeEvents) {
-            api.registerforChangeEvents(this);
+            api.registerforBridgeEvents(this);
             isRegisteredForChangeEvents = true;
         }
 
+        // The connection is established in the background. The bridge goes
+        // online as soon as the HEOS system reports the connection as restored.
+        updateStatus(ThingStatus.UNKNOWN);
+        heos.startConnection(heartBeatPulse);
+    }
+
+    /*
+     * Called each time the connection to the HEOS system is established.
+     * Logs in and fetches the states of all players and groups.
+     */
+
+    private void connectionEstablished() {
+
         scheduledStartUp();
+        heos.bootstrapStates().thenAcceptAsync(snapshot -> publishStateSnapshot(snapshot),
+                heos.getScheduler());
         updateStatus(ThingStatus.ONLINE);
         logger.info("HEOS Bridge Online");
-        connectionDelay = false; // sets default to false again
-
     }
 
     @Override
     public void dispose() {
 
         logger.info("HEOS bridge remobed from change notifications");
-        api.unregisterforChangeEvents(this);
+        api.unregisterforBridgeEvents(this);
         isRegisteredForChangeEvents = false;
         loggedIn = false;
         logger.info("Dispose Brige '{}'", thing.getConfiguration().get(NAME));
         try {
             heos.closeConnection();
-            bridgeIsConnected = false;
         } catch (IOException | InterruptedException e) {
             logger.error("Unable to close connection to HEOS System. Message: {}", e.getMessage());
             e.printStackTrace();
@@ -278,7 +292,7 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
     }
 
     @Override
-    public void playerMediaChangeEvent(String pid, HashMap<String, String> info) {
+    public void playerMediaChangeEvent(String pid, HeosMediaInfo info) {
         // Do nothing
 
     }
@@ -294,26 +308,22 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
 
             } else if (command.equals(CONNECTION_LOST)) {
                 updateStatus(ThingStatus.OFFLINE);
-                bridgeIsConnected = false;
                 logger.warn("Heos Bridge OFFLINE");
 
             } else if (command.equals(CONNECTION_RESTORED)) {
-                connectionDelay = true;
-                initialize();
+                connectionEstablished();
             }
         }
         if (event.equals(EVENTTYPE_SYSTEM)) {
             if (command.equals(COM_SING_IN)) {
                 if (result.equals(SUCCESS)) {
                     loggedIn = true;
-                    addFavorits();
-                    addPlaylists();
+                    loadAccountContent();
                 }
             } else if (command.equals(COM_USER_CHANGED)) {
                 if (!loggedIn) {
                     loggedIn = true;
-                    addFavorits();
-                    addPlaylists();
+                    loadAccountContent();
                 }
             }
         }
@@ -374,6 +384,23 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
         return null;
     }
 
+    /*
+     * The favorites and playlists are fetched by blocking commands, so they
+     * are loaded by the I/O executor and not by the thread dispatching the event.
+     */
+
+    private void loadAccountContent() {
+
+        heos.getIoExecutor().execute(new Runnable() {
+
+            @Override
+            public void run() {
+                addFavorits();
+                addPlaylists();
+            }
+        });
+    }
+
     public void addPlaylists() {
         if (loggedIn) {
             heosPlaylists.clear();
@@ -387,32 +414,18 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
         if (loggedIn) {
             removeChannels(CH_TYPE_FAVORIT);
 
-            List<HashMap<String, String>> favList = new ArrayList<HashMap<String, String>>();
-            HashMap<String, String> favorits = new HashMap<String, String>(4);
-            favList = heos.getFavorits();
+            List<HeosBrowseItem> favList = heos.getFavorits();
             int favCount = favList.size();
             ArrayList<Channel> favoritChannels = new ArrayList<Channel>(favCount);
 
-            if (favCount != 0) {
-                for (int i = 0; i < favCount; i++) {
-                    for (String key : favList.get(i).keySet()) {
-                        if (key.equals(MID)) {
-                            favorits.put(key, favList.get(i).get(key));
-                        }
-                        if (key.equals(NAME)) {
-                            favorits.put(key, favList.get(i).get(key));
-                        }
-                        if (key.equals(null)) {
+            for (int i = 0; i < favCount; i++) {
+                HashMap<String, String> favorits = new HashMap<String, String>(4);
+                favorits.put(MID, favList.get(i).getMid());
+                favorits.put(NAME, favList.get(i).getName());
 
-                        }
-
-                    }
-
-                    logger.info("Add Favorite Channel: {}", favorits.get(NAME));
-
-                    favoritChannels.add(createFavoritChannel(favorits));
-                }
+                logger.info("Add Favorite Channel: {}", favorits.get(NAME));
 
+                favoritChannels.add(createFavoritChannel(favorits));
             }
             addChannel(favoritChannels);
 
@@ -530,11 +543,64 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
         return heos.getGroupsRemoved();
     }
 
+    /*
+     * Groups the players unless they already form a group. If one of the players
+     * leads a group it stays the leader, so its group is extended.
+     */
+
+    private void buildGroup(List<String> pids) {
+
+        HeosGroup existing = heos.getGroupByMembers(pids);
+        if (existing != null) {
+            logger.debug("Players {} already form the group {}", pids, existing.getName());
+            return;
+        }
+        for (String pid : pids) {
+            HeosGroup group = heos.getGroupOfPlayer(pid);
+            if (group != null && pid.equals(group.getLeader())) {
+                pids.remove(pid);
+                pids.add(0, pid);
+                break;
+            }
+        }
+        logFailures("group", batchApi.groupPlayer(pids));
+    }
+
+    /**
+     *
+     * @return the groups which were added, removed or changed with the last call of {@link #getNewGroups()}
+     */
+
+    public HeosGroupRegistry.Changes getGroupChanges() {
+        return heos.getGroupChanges();
+    }
+
+    /**
+     * Hands the states of the bootstrap to all player and group handlers at once.
+     */
+
+    private void publishStateSnapshot(HeosStateSnapshot snapshot) {
+
+        for (ThingHandler handler : new ArrayList<ThingHandler>(handlerList.values())) {
+            if (handler instanceof HeosPlayerHandler) {
+                ((HeosPlayerHandler) handler).initializeState(snapshot);
+            } else if (handler instanceof HeosGroupHandler) {
+                ((HeosGroupHandler) handler).initializeState(snapshot);
+            }
+        }
+    }
+
     public void scheduledStartUp() {
-        initPhase = Executors.newScheduledThreadPool(1);
-        initPhaseRunnable = new InitProcedure();
+        heos.getIoExecutor().execute(new InitProcedure());
+    }
 
-        initPhase.schedule(this.initPhaseRunnable, 10, TimeUnit.SECONDS);
+    /**
+     *
+     * @return the HEOS system connected by this bridge
+     */
+
+    public HeosSystem getHeosSystem() {
+        return heos;
     }
 
     public class InitProcedure implements Runnable {
@@ -542,10 +608,6 @@ public class HeosBridgeHandler extends BaseBridgeHandler implements HeosEventLis
         @Override
         public void run() {
 
-            heos.startEventListener();
-            heos.startHeartBeat(heartBeatPulse);
-            logger.info("HEOS System heart beat startet. Pulse time is {}s", heartBeatPulse);
-
             if (thing.getConfiguration().containsKey(USER_NAME) && thing.getConfiguration().containsKey(PASSWORD)) {
                 logger.info("Logging in to HEOS account.");
                 String name = thing.getConfiguration().get(USER_NAME).toString();
@@ -0,0 +1,73 @@
+package org.openhab.binding.heos.handler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * The {@link HeosChannelStateCache} stores the last state published per channel
+ * of a thing. The handlers only publish a state if it differs from the cached
+ * one, because most events of the HEOS system repeat the former values.
+ *
+ * The cached state of a channel has to be invalidated if the item state may
+ * have changed without the handler, e.g. if a command was received.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosChannelStateCache {
+
+    private final ConcurrentHashMap<String, State> lastStates = new ConcurrentHashMap<String, State>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Stores the state as the last published state of the channel
+     *
+     * @param channelId the id of the channel
+     * @param state the state to be published
+     * @return true if the state differs from the last published state
+     *         and has to be published
+     */
+
+    public boolean isChanged(String channelId, State state) {
+
+        State lastState = lastStates.put(channelId, state);
+        if (state.equals(lastState)) {
+            hits.incrementAndGet();
+            return false;
+        }
+        misses.incrementAndGet();
+        return true;
+    }
+
+    public void invalidate(String channelId) {
+        lastStates.remove(channelId);
+    }
+
+    public void clear() {
+        lastStates.clear();
+    }
+
+    /**
+     *
+     * @return the number of states which were not published because they were unchanged
+     */
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     *
+     * @return the number of states which were published
+     */
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+}
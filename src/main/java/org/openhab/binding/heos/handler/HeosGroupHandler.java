@@ -4,8 +4,6 @@ import static org.openhab.binding.heos.HeosBindingConstants.*;
 import static org.openhab.binding.heos.resources.HeosConstants.GID;
 
 import java.util.HashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.core.library.types.OnOffType;
@@ -15,11 +13,17 @@ import org.eclipse.smarthome.core.library.types.StringType;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.heos.api.HeosAPI;
+import org.openhab.binding.heos.api.HeosAsyncAPI;
+import org.openhab.binding.heos.api.HeosFadeEngine;
 import org.openhab.binding.heos.api.HeosSystem;
 import org.openhab.binding.heos.resources.HeosEventListener;
+import org.openhab.binding.heos.resources.HeosMediaInfo;
+import org.openhab.binding.heos.resources.HeosStateSnapshot;
 import org.openhab.binding.heos.resources.HeosGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,16 +31,16 @@ import org.slf4j.LoggerFactory;
 public class HeosGroupHandler extends BaseThingHandler implements HeosEventListener {
 
     private HeosAPI api;
+    private HeosAsyncAPI asyncApi;
     private HeosSystem heos;
     private String gid;
 
     private HeosGroup heosGroup;
+    private HeosChannelStateCache stateCache = new HeosChannelStateCache();
     private Logger logger = LoggerFactory.getLogger(HeosGroupHandler.class);
 
-    public HeosGroupHandler(Thing thing, HeosSystem heos, HeosAPI api) {
+    public HeosGroupHandler(Thing thing) {
         super(thing);
-        this.heos = heos;
-        this.api = api;
         gid = thing.getConfiguration().get(GID).toString();
 
     }
@@ -44,7 +48,9 @@ public class HeosGroupHandler extends BaseThingHandler implements HeosEventListe
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
 
-        if (command.toString().equals("REFRESH")) {
+        stateCache.invalidate(channelUID.getId());
+
+        if (asyncApi == null || command.toString().equals("REFRESH")) {
             return;
         }
 
@@ -55,41 +61,45 @@ public class HeosGroupHandler extends BaseThingHandler implements HeosEventListe
             switch (com) {
 
                 case "PLAY":
-                    api.play(gid);
+                    asyncApi.play(gid);
                     break;
                 case "PAUSE":
-                    api.pause(gid);
+                    asyncApi.pause(gid);
                     break;
                 case "NEXT":
-                    api.next(gid);
+                    asyncApi.next(gid);
                     break;
                 case "PREVIOUS":
-                    api.prevoious(gid);
+                    asyncApi.previous(gid);
                     break;
                 case "ON":
-                    api.play(gid);
+                    asyncApi.play(gid);
                     break;
                 case "OFF":
-                    api.pause(gid);
+                    asyncApi.pause(gid);
                     break;
 
             }
         } else if (channelUID.getId().equals(CH_ID_VOLUME)) {
 
-            api.volumeGroup(command.toString(), gid);
+            asyncApi.volumeGroup(command.toString(), gid);
+
+        } else if (channelUID.getId().equals(CH_ID_FADE)) {
+
+            fade(command.toString());
 
         } else if (channelUID.getId().equals(CH_ID_MUTE)) {
 
             if (command.toString().equals("ON")) {
 
-                api.muteGroupON(gid);
+                asyncApi.muteGroupON(gid);
             } else {
-                api.muteGroupOFF(gid);
+                asyncApi.muteGroupOFF(gid);
             }
         } else if (channelUID.getId().equals(CH_ID_UNGROUP)) {
 
             if (command.toString().equals("ON")) {
-                api.ungroupGroup(gid);
+                asyncApi.ungroupGroup(gid);
 
             }
         }
@@ -99,9 +109,20 @@ public class HeosGroupHandler extends BaseThingHandler implements HeosEventListe
     @Override
     public void initialize() {
 
-        api.registerforChangeEvents(this);
-        ScheduledExecutorService executerPool = Executors.newScheduledThreadPool(1);
-        executerPool.schedule(new InitializationRunnable(), 4, TimeUnit.SECONDS);
+        stateCache.clear();
+
+        // The HEOS system is owned by the bridge, so each bridge can connect
+        // to its own HEOS network.
+        if (getBridge() == null || !(getBridge().getHandler() instanceof HeosBridgeHandler)) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, "No HEOS bridge assigned");
+            return;
+        }
+        heos = ((HeosBridgeHandler) getBridge().getHandler()).getHeosSystem();
+        api = heos.getAPI();
+        asyncApi = heos.getAsyncAPI();
+
+        api.registerforChangeEvents(gid, this);
+        heos.getScheduler().schedule(new InitializationRunnable(), 4, TimeUnit.SECONDS);
         updateStatus(ThingStatus.ONLINE);
         updateState(CH_ID_STATUS, StringType.valueOf(ONLINE));
         super.initialize();
@@ -110,7 +131,11 @@ public class HeosGroupHandler extends BaseThingHandler implements HeosEventListe
 
     @Override
     public void dispose() {
-        api.unregisterforChangeEvents(this);
+        if (api != null) {
+            api.unregisterforChangeEvents(gid, this);
+        }
+        logger.debug("State cache of group {}: {} unchanged states skipped, {} states published", gid,
+                stateCache.getHits(), stateCache.getMisses());
         super.dispose();
 
     }
@@ -130,30 +155,30 @@ public class HeosGroupHandler extends BaseThingHandler implements HeosEventListe
                 switch (command) {
 
                     case PLAY:
-                        updateState(CH_ID_CONTROL, PlayPauseType.PLAY);
+                        updateChannelState(CH_ID_CONTROL, PlayPauseType.PLAY);
                         break;
                     case PAUSE:
-                        updateState(CH_ID_CONTROL, PlayPauseType.PAUSE);
+                        updateChannelState(CH_ID_CONTROL, PlayPauseType.PAUSE);
                         break;
                     case STOP:
-                        updateState(CH_ID_CONTROL, PlayPauseType.PAUSE);
+                        updateChannelState(CH_ID_CONTROL, PlayPauseType.PAUSE);
                         break;
                 }
 
             }
             if (event.equals(VOLUME)) {
 
-                updateState(CH_ID_VOLUME, PercentType.valueOf(command));
+                updateChannelState(CH_ID_VOLUME, PercentType.valueOf(command));
 
             }
             if (event.equals(MUTE)) {
 
                 switch (command) {
                     case ON:
-                        this.updateState(CH_ID_MUTE, OnOffType.ON);
+                        updateChannelState(CH_ID_MUTE, OnOffType.ON);
                         break;
                     case OFF:
-                        updateState(CH_ID_MUTE, OnOffType.OFF);
+                        updateChannelState(CH_ID_MUTE, OnOffType.OFF);
                         break;
                 }
 
@@ -164,31 +189,49 @@ public class HeosGroupHandler extends BaseThingHandler implements HeosEventListe
     }
 
     @Override
-    public void playerMediaChangeEvent(String pid, HashMap<String, String> info) {
-        if (pid.equals(this.gid)) {
+    public void playerMediaChangeEvent(String pid, HeosMediaInfo info) {
 
-            for (String key : info.keySet()) {
+        if (pid.equals(this.gid)) {
+            updateMediaState(CH_ID_SONG, info.getSong());
+            updateMediaState(CH_ID_ARTIST, info.getArtist());
+            updateMediaState(CH_ID_ALBUM, info.getAlbum());
+            updateMediaState(CH_ID_IMAGE_URL, info.getImage_url());
+        }
 
-                switch (key) {
+    }
 
-                    case SONG:
-                        updateState(CH_ID_SONG, StringType.valueOf(info.get(key)));
-                        break;
-                    case ARTIST:
-                        updateState(CH_ID_ARTIST, StringType.valueOf(info.get(key)));
-                        break;
-                    case ALBUM:
-                        updateState(CH_ID_ALBUM, StringType.valueOf(info.get(key)));
-                        break;
-                    case IMAGE_URL:
-                        updateState(CH_ID_IMAGE_URL, StringType.valueOf(info.get(key)));
-                        break;
+    private void updateMediaState(String channelId, String value) {
+        if (value != null) {
+            updateChannelState(channelId, StringType.valueOf(value));
+        }
+    }
 
-                }
+    /*
+     * The command has the format <level>[,<seconds>[,<curve>]], e.g. "0,30,linear"
+     */
+
+    private void fade(String command) {
+
+        String[] parts = command.split(",");
+        try {
+            int level = Integer.parseInt(parts[0].trim());
+            long duration = parts.length > 1 ? Math.round(Double.parseDouble(parts[1].trim()) * 1000)
+                    : DEFAULT_FADE_DURATION;
+            String curve = parts.length > 2 ? parts[2].trim() : HeosFadeEngine.CURVE_LINEAR;
+            asyncApi.fadeGroup(gid, level, duration, curve);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid fade command '{}'. Expected <level>[,<seconds>[,<curve>]]", command);
+        }
+    }
 
-            }
+    private void updateChannelState(String channelId, State state) {
+        if (stateCache.isChanged(channelId, state)) {
+            updateState(channelId, state);
         }
+    }
 
+    public HeosChannelStateCache getStateCache() {
+        return stateCache;
     }
 
     @Override
@@ -198,55 +241,96 @@ public class HeosGroupHandler extends BaseThingHandler implements HeosEventListe
     }
 
     public void setStatusOffline() {
-        api.unregisterforChangeEvents(this);
+        api.unregisterforChangeEvents(gid, this);
         updateState(CH_ID_STATUS, StringType.valueOf(OFFLINE));
         updateStatus(ThingStatus.OFFLINE);
     }
 
-    public class InitializationRunnable implements Runnable {
-
-        @Override
-        public void run() {
-
-            heosGroup = heos.getGroupState(gid);
+    /**
+     * Initializes all channels with the state of the group from the snapshot
+     * of the state bootstrap. If the snapshot does not contain the group its
+     * state is fetched from the HEOS system without blocking the caller. If
+     * the state can not be fetched the group is set OFFLINE.
+     *
+     * @param snapshot the snapshot of the state bootstrap or {@code null}
+     */
 
-            HeosBridgeHandler bridge = (HeosBridgeHandler) getBridge().getHandler();
+    public void initializeState(HeosStateSnapshot snapshot) {
 
-            if (!thing.getConfiguration().get(NAME_HASH).equals(heosGroup.getNameHash())) {
-                updateStatus(ThingStatus.OFFLINE);
+        HeosGroup state = snapshot == null ? null : snapshot.getGroup(gid);
+        if (state != null) {
+            setGroupState(state);
+            return;
+        }
+        heos.fetchGroupState(gid).thenAccept(fetched -> {
+            if (fetched == null) {
+                // The group is initialized again when it is discovered again
+                logger.warn("Could not initialize HEOS group {}. Set OFFLINE", gid);
                 setStatusOffline();
-                bridge.thingStatusOffline(thing.getUID());
-                updateState(CH_ID_STATUS, StringType.valueOf(OFFLINE));
+                if (getBridge() != null && getBridge().getHandler() instanceof HeosBridgeHandler) {
+                    ((HeosBridgeHandler) getBridge().getHandler()).thingStatusOffline(thing.getUID());
+                }
                 return;
             }
+            setGroupState(fetched);
+        });
+    }
 
-            // informs the System about the existing group
+    private void setGroupState(HeosGroup group) {
 
-            bridge.thingStatusOnline(thing.getUID());
-            HashMap<String, HeosGroup> usedToFillOldGroupMap = new HashMap<>();
-            usedToFillOldGroupMap.put(heosGroup.getNameHash(), heosGroup);
-            heos.addHeosGroupToOldGroupMap(usedToFillOldGroupMap);
+        heosGroup = group;
 
-            updateState(CH_ID_UNGROUP, OnOffType.OFF);
-            updateState(CH_ID_VOLUME, PercentType.valueOf(heosGroup.getLevel()));
+        HeosBridgeHandler bridge = (HeosBridgeHandler) getBridge().getHandler();
 
-            if (heosGroup.getMute().equals(ON)) {
-                updateState(CH_ID_MUTE, OnOffType.ON);
-            } else {
-                updateState(CH_ID_MUTE, OnOffType.OFF);
-            }
+        if (!thing.getConfiguration().get(NAME_HASH).equals(heosGroup.getNameHash())) {
+            updateStatus(ThingStatus.OFFLINE);
+            setStatusOffline();
+            bridge.thingStatusOffline(thing.getUID());
+            updateState(CH_ID_STATUS, StringType.valueOf(OFFLINE));
+            return;
+        }
 
-            if (heosGroup.getState().equals(PLAY)) {
-                updateState(CH_ID_CONTROL, PlayPauseType.PLAY);
-            }
-            if (heosGroup.getState().equals(PAUSE) || heosGroup.getState().equals(STOP)) {
-                updateState(CH_ID_CONTROL, PlayPauseType.PAUSE);
+        // informs the System about the existing group
+
+        bridge.thingStatusOnline(thing.getUID());
+        HashMap<String, HeosGroup> usedToFillOldGroupMap = new HashMap<>();
+        usedToFillOldGroupMap.put(heosGroup.getNameHash(), heosGroup);
+        heos.addHeosGroupToOldGroupMap(usedToFillOldGroupMap);
+
+        updateState(CH_ID_UNGROUP, OnOffType.OFF);
+        if (heosGroup.getLevel() != null) {
+            updateChannelState(CH_ID_VOLUME, PercentType.valueOf(heosGroup.getLevel()));
+        }
+
+        if (ON.equals(heosGroup.getMute())) {
+            updateChannelState(CH_ID_MUTE, OnOffType.ON);
+        } else {
+            updateChannelState(CH_ID_MUTE, OnOffType.OFF);
+        }
+
+        if (PLAY.equals(heosGroup.getState())) {
+            updateChannelState(CH_ID_CONTROL, PlayPauseType.PLAY);
+        }
+        if (PAUSE.equals(heosGroup.getState()) || STOP.equals(heosGroup.getState())) {
+            updateChannelState(CH_ID_CONTROL, PlayPauseType.PAUSE);
+        }
+        updateChannelState(CH_ID_SONG, StringType.valueOf(heosGroup.getSong()));
+        updateChannelState(CH_ID_ARTIST, StringType.valueOf(heosGroup.getArtist()));
+        updateChannelState(CH_ID_ALBUM, StringType.valueOf(heosGroup.getAlbum()));
+        updateChannelState(CH_ID_IMAGE_URL, StringType.valueOf(heosGroup.getImage_url()));
+        updateState(CH_ID_STATUS, StringType.valueOf(ONLINE));
+    }
+
+    public class InitializationRunnable implements Runnable {
+
+        @Override
+        public void run() {
+
+            // The state is published by the bridge when the bootstrap is finished
+            if (heos.isStateBootstrapRunning()) {
+                return;
             }
-            updateState(CH_ID_SONG, StringType.valueOf(heosGroup.getSong()));
-            updateState(CH_ID_ARTIST, StringType.valueOf(heosGroup.getArtist()));
-            updateState(CH_ID_ALBUM, StringType.valueOf(heosGroup.getAlbum()));
-            updateState(CH_ID_IMAGE_URL, StringType.valueOf(heosGroup.getImage_url()));
-            updateState(CH_ID_STATUS, StringType.valueOf(ONLINE));
+            initializeState(heos.getStateSnapshot());
 
         }
 
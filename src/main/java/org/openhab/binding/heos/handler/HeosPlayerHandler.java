@@ -4,8 +4,6 @@ import static org.openhab.binding.heos.HeosBindingConstants.*;
 import static org.openhab.binding.heos.resources.HeosConstants.PID;
 
 import java.util.HashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.core.library.types.OnOffType;
@@ -15,11 +13,17 @@ import org.eclipse.smarthome.core.library.types.StringType;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.heos.api.HeosAPI;
+import org.openhab.binding.heos.api.HeosAsyncAPI;
+import org.openhab.binding.heos.api.HeosFadeEngine;
 import org.openhab.binding.heos.api.HeosSystem;
 import org.openhab.binding.heos.resources.HeosEventListener;
+import org.openhab.binding.heos.resources.HeosMediaInfo;
+import org.openhab.binding.heos.resources.HeosStateSnapshot;
 import org.openhab.binding.heos.resources.HeosPlayer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,17 +31,17 @@ import org.slf4j.LoggerFactory;
 public class HeosPlayerHandler extends BaseThingHandler implements HeosEventListener {
 
     private HeosAPI api;
+    private HeosAsyncAPI asyncApi;
     private HeosSystem heos;
     private String pid;
     private HashMap<String, HeosPlayer> playerMap;
     private HeosPlayer player;
 
+    private HeosChannelStateCache stateCache = new HeosChannelStateCache();
     private Logger logger = LoggerFactory.getLogger(HeosPlayerHandler.class);
 
-    public HeosPlayerHandler(Thing thing, HeosSystem heos, HeosAPI api) {
+    public HeosPlayerHandler(Thing thing) {
         super(thing);
-        this.heos = heos;
-        this.api = api;
         pid = thing.getConfiguration().get(PID).toString();
 
     }
@@ -45,7 +49,9 @@ public class HeosPlayerHandler extends BaseThingHandler implements HeosEventList
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
 
-        if (command.toString().equals("REFRESH")) {
+        stateCache.invalidate(channelUID.getId());
+
+        if (asyncApi == null || command.toString().equals("REFRESH")) {
             return;
         }
 
@@ -56,39 +62,43 @@ public class HeosPlayerHandler extends BaseThingHandler implements HeosEventList
             switch (com) {
 
                 case "PLAY":
-                    api.play(pid);
+                    asyncApi.play(pid);
                     break;
                 case "PAUSE":
-                    api.pause(pid);
+                    asyncApi.pause(pid);
                     break;
                 case "NEXT":
-                    api.next(pid);
+                    asyncApi.next(pid);
                     break;
                 case "PREVIOUS":
-                    api.prevoious(pid);
+                    asyncApi.previous(pid);
                     break;
                 case "ON":
-                    api.play(pid);
+                    asyncApi.play(pid);
                     break;
                 case "OFF":
-                    api.pause(pid);
+                    asyncApi.pause(pid);
                     break;
 
             }
         } else if (channelUID.getId().equals(CH_ID_VOLUME)) {
 
-            api.volume(command.toString(), pid);
+            asyncApi.volume(command.toString(), pid);
+
+        } else if (channelUID.getId().equals(CH_ID_FADE)) {
+
+            fade(command.toString());
 
         } else if (channelUID.getId().equals(CH_ID_MUTE)) {
 
             if (command.toString().equals("ON")) {
-                api.muteON(pid);
+                asyncApi.muteON(pid);
             } else {
-                api.muteOFF(pid);
+                asyncApi.muteOFF(pid);
             }
         } else if (channelUID.getId().equals(CH_ID_INPUTS)) {
 
-            api.playInputSource(pid, command.toString());
+            asyncApi.playInputSource(pid, command.toString());
 
         }
 
@@ -97,9 +107,20 @@ public class HeosPlayerHandler extends BaseThingHandler implements HeosEventList
     @Override
     public void initialize() {
 
-        api.registerforChangeEvents(this);
-        ScheduledExecutorService executerPool = Executors.newScheduledThreadPool(1);
-        executerPool.schedule(new InitializationRunnable(), 3, TimeUnit.SECONDS);
+        stateCache.clear();
+
+        // The HEOS system is owned by the bridge, so each bridge can connect
+        // to its own HEOS network.
+        if (getBridge() == null || !(getBridge().getHandler() instanceof HeosBridgeHandler)) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, "No HEOS bridge assigned");
+            return;
+        }
+        heos = ((HeosBridgeHandler) getBridge().getHandler()).getHeosSystem();
+        api = heos.getAPI();
+        asyncApi = heos.getAsyncAPI();
+
+        api.registerforChangeEvents(pid, this);
+        heos.getScheduler().schedule(new InitializationRunnable(), 3, TimeUnit.SECONDS);
         updateStatus(ThingStatus.ONLINE);
         super.initialize();
 
@@ -107,7 +128,11 @@ public class HeosPlayerHandler extends BaseThingHandler implements HeosEventList
 
     @Override
     public void dispose() {
-        api.unregisterforChangeEvents(this);
+        if (api != null) {
+            api.unregisterforChangeEvents(pid, this);
+        }
+        logger.debug("State cache of player {}: {} unchanged states skipped, {} states published", pid,
+                stateCache.getHits(), stateCache.getMisses());
 
     }
 
@@ -119,30 +144,30 @@ public class HeosPlayerHandler extends BaseThingHandler implements HeosEventList
                 switch (command) {
 
                     case PLAY:
-                        updateState(CH_ID_CONTROL, PlayPauseType.PLAY);
+                        updateChannelState(CH_ID_CONTROL, PlayPauseType.PLAY);
                         break;
                     case PAUSE:
-                        updateState(CH_ID_CONTROL, PlayPauseType.PAUSE);
+                        updateChannelState(CH_ID_CONTROL, PlayPauseType.PAUSE);
                         break;
                     case STOP:
-                        updateState(CH_ID_CONTROL, PlayPauseType.PAUSE);
+                        updateChannelState(CH_ID_CONTROL, PlayPauseType.PAUSE);
                         break;
                 }
 
             }
             if (event.equals(VOLUME)) {
 
-                updateState(CH_ID_VOLUME, PercentType.valueOf(command));
+                updateChannelState(CH_ID_VOLUME, PercentType.valueOf(command));
 
             }
             if (event.equals(MUTE)) {
                 if (command != null) {
                     switch (command) {
                         case ON:
-                            updateState(CH_ID_MUTE, OnOffType.ON);
+                            updateChannelState(CH_ID_MUTE, OnOffType.ON);
                             break;
                         case OFF:
-                            updateState(CH_ID_MUTE, OnOffType.OFF);
+                            updateChannelState(CH_ID_MUTE, OnOffType.OFF);
                             break;
                     }
                 }
@@ -154,31 +179,49 @@ public class HeosPlayerHandler extends BaseThingHandler implements HeosEventList
     }
 
     @Override
-    public void playerMediaChangeEvent(String pid, HashMap<String, String> info) {
+    public void playerMediaChangeEvent(String pid, HeosMediaInfo info) {
 
         if (pid.equals(this.pid)) {
-            for (String key : info.keySet()) {
+            updateMediaState(CH_ID_SONG, info.getSong());
+            updateMediaState(CH_ID_ARTIST, info.getArtist());
+            updateMediaState(CH_ID_ALBUM, info.getAlbum());
+            updateMediaState(CH_ID_IMAGE_URL, info.getImage_url());
+        }
 
-                switch (key) {
+    }
 
-                    case SONG:
-                        updateState(CH_ID_SONG, StringType.valueOf(info.get(key)));
-                        break;
-                    case ARTIST:
-                        updateState(CH_ID_ARTIST, StringType.valueOf(info.get(key)));
-                        break;
-                    case ALBUM:
-                        updateState(CH_ID_ALBUM, StringType.valueOf(info.get(key)));
-                        break;
-                    case IMAGE_URL:
-                        updateState(CH_ID_IMAGE_URL, StringType.valueOf(info.get(key)));
-                        break;
+    private void updateMediaState(String channelId, String value) {
+        if (value != null) {
+            updateChannelState(channelId, StringType.valueOf(value));
+        }
+    }
 
-                }
+    /*
+     * The command has the format <level>[,<seconds>[,<curve>]], e.g. "0,30,linear"
+     */
+
+    private void fade(String command) {
+
+        String[] parts = command.split(",");
+        try {
+            int level = Integer.parseInt(parts[0].trim());
+            long duration = parts.length > 1 ? Math.round(Double.parseDouble(parts[1].trim()) * 1000)
+                    : DEFAULT_FADE_DURATION;
+            String curve = parts.length > 2 ? parts[2].trim() : HeosFadeEngine.CURVE_LINEAR;
+            asyncApi.fade(pid, level, duration, curve);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid fade command '{}'. Expected <level>[,<seconds>[,<curve>]]", command);
+        }
+    }
 
-            }
+    private void updateChannelState(String channelId, State state) {
+        if (stateCache.isChanged(channelId, state)) {
+            updateState(channelId, state);
         }
+    }
 
+    public HeosChannelStateCache getStateCache() {
+        return stateCache;
     }
 
     @Override
@@ -187,34 +230,74 @@ public class HeosPlayerHandler extends BaseThingHandler implements HeosEventList
 
     }
 
-    public class InitializationRunnable implements Runnable {
-
-        @Override
-        public void run() {
+    /**
+     * Initializes all channels with the state of the player from the snapshot
+     * of the state bootstrap. If the snapshot does not contain the player its
+     * state is fetched from the HEOS system without blocking the caller. If
+     * the state can not be fetched the player is set OFFLINE.
+     *
+     * @param snapshot the snapshot of the state bootstrap or {@code null}
+     */
 
-            player = heos.getPlayerState(pid);
+    public void initializeState(HeosStateSnapshot snapshot) {
 
-            if (player.getLevel() != null) {
-                updateState(CH_ID_VOLUME, PercentType.valueOf(player.getLevel()));
+        HeosPlayer state = snapshot == null ? null : snapshot.getPlayer(pid);
+        if (state != null) {
+            setPlayerState(state);
+            return;
+        }
+        heos.fetchPlayerState(pid).thenAccept(fetched -> {
+            if (fetched == null) {
+                // The player is initialized again when it is discovered again
+                logger.warn("Could not initialize HEOS player {}. Set OFFLINE", pid);
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+                        "The state of the player could not be fetched");
+                if (getBridge() != null && getBridge().getHandler() instanceof HeosBridgeHandler) {
+                    ((HeosBridgeHandler) getBridge().getHandler()).thingStatusOffline(thing.getUID());
+                }
+                return;
             }
+            setPlayerState(fetched);
+        });
+    }
 
-            if (player.getMute().equals(ON)) {
-                updateState(CH_ID_MUTE, OnOffType.ON);
-            } else {
-                updateState(CH_ID_MUTE, OnOffType.OFF);
-            }
+    private void setPlayerState(HeosPlayer player) {
 
-            if (player.getState().equals(PLAY)) {
-                updateState(CH_ID_CONTROL, PlayPauseType.PLAY);
-            }
-            if (player.getState().equals(PAUSE) || player.getState().equals(STOP)) {
-                updateState(CH_ID_CONTROL, PlayPauseType.PAUSE);
+        this.player = player;
+
+        if (player.getLevel() != null) {
+            updateChannelState(CH_ID_VOLUME, PercentType.valueOf(player.getLevel()));
+        }
+
+        if (ON.equals(player.getMute())) {
+            updateChannelState(CH_ID_MUTE, OnOffType.ON);
+        } else {
+            updateChannelState(CH_ID_MUTE, OnOffType.OFF);
+        }
+
+        if (PLAY.equals(player.getState())) {
+            updateChannelState(CH_ID_CONTROL, PlayPauseType.PLAY);
+        }
+        if (PAUSE.equals(player.getState()) || STOP.equals(player.getState())) {
+            updateChannelState(CH_ID_CONTROL, PlayPauseType.PAUSE);
+        }
+        updateChannelState(CH_ID_SONG, StringType.valueOf(player.getSong()));
+        updateChannelState(CH_ID_ARTIST, StringType.valueOf(player.getArtist()));
+        updateChannelState(CH_ID_ALBUM, StringType.valueOf(player.getAlbum()));
+        updateChannelState(CH_ID_IMAGE_URL, StringType.valueOf(player.getImage_url()));
+        updateState(CH_ID_INPUTS, StringType.valueOf("NULL"));
+    }
+
+    public class InitializationRunnable implements Runnable {
+
+        @Override
+        public void run() {
+
+            // The state is published by the bridge when the bootstrap is finished
+            if (heos.isStateBootstrapRunning()) {
+                return;
             }
-            updateState(CH_ID_SONG, StringType.valueOf(player.getSong()));
-            updateState(CH_ID_ARTIST, StringType.valueOf(player.getArtist()));
-            updateState(CH_ID_ALBUM, StringType.valueOf(player.getAlbum()));
-            updateState(CH_ID_IMAGE_URL, StringType.valueOf(player.getImage_url()));
-            updateState(CH_ID_INPUTS, StringType.valueOf("NULL"));
+            initializeState(heos.getStateSnapshot());
 
         }
 
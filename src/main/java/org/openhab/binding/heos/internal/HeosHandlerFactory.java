@@ -22,13 +22,14 @@ import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.openhab.binding.heos.HeosBindingConstants;
-import org.openhab.binding.heos.api.HeosAPI;
 import org.openhab.binding.heos.api.HeosSystem;
 import org.openhab.binding.heos.handler.HeosBridgeHandler;
 import org.openhab.binding.heos.handler.HeosGroupHandler;
 import org.openhab.binding.heos.handler.HeosPlayerHandler;
 import org.openhab.binding.heos.internal.discovery.HeosPlayerDiscovery;
+import org.openhab.binding.heos.resources.HeosScheduler;
 import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,11 +44,28 @@ public class HeosHandlerFactory extends BaseThingHandlerFactory {
     private Map<ThingUID, ServiceRegistration<?>> discoveryServiceRegs = new HashMap<>();
 
     private Logger logger = LoggerFactory.getLogger(HeosHandlerFactory.class);
-    private HeosSystem heos = new HeosSystem();
-    private HeosAPI api = heos.getAPI();
+
+    /*
+     * One scheduler for all bridges, players and groups. Created and
+     * shut down with the bundle.
+     */
+    private HeosScheduler scheduler;
 
     private final static Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = HeosBindingConstants.supportedThingTypes();
 
+    @Override
+    protected void activate(ComponentContext componentContext) {
+        super.activate(componentContext);
+        scheduler = new HeosScheduler();
+    }
+
+    @Override
+    protected void deactivate(ComponentContext componentContext) {
+        logger.debug("Shutting down HEOS scheduler: {}", scheduler);
+        scheduler.shutdownNow();
+        super.deactivate(componentContext);
+    }
+
     @Override
     public boolean supportsThingType(ThingTypeUID thingTypeUID) {
         return SUPPORTED_THING_TYPES_UIDS.contains(thingTypeUID);
@@ -61,7 +79,10 @@ public class HeosHandlerFactory extends BaseThingHandlerFactory {
 
         if (thingTypeUID.equals(THING_TYPE_BRIDGE)) {
 
-            HeosBridgeHandler bridgeHandler = new HeosBridgeHandler((Bridge) thing, heos, api);
+            // Every bridge connects its own HEOS system, so several HEOS
+            // networks can be used at the same time.
+            HeosSystem heos = new HeosSystem(scheduler);
+            HeosBridgeHandler bridgeHandler = new HeosBridgeHandler((Bridge) thing, heos, heos.getAPI());
             HeosPlayerDiscovery playerDiscovery = new HeosPlayerDiscovery(bridgeHandler);
             playerDiscovery.addDiscoveryListener(bridgeHandler);
             discoveryServiceRegs.put(bridgeHandler.getThing().getUID(), bundleContext.registerService(
@@ -73,11 +94,11 @@ public class HeosHandlerFactory extends BaseThingHandlerFactory {
 
         }
         if (thingTypeUID.equals(THING_TYPE_PLAYER)) {
-            return new HeosPlayerHandler(thing, heos, api);
+            return new HeosPlayerHandler(thing);
 
         }
         if (thingTypeUID.equals(THING_TYPE_GROUP)) {
-            return new HeosGroupHandler(thing, heos, api);
+            return new HeosGroupHandler(thing);
         }
 
         return null;
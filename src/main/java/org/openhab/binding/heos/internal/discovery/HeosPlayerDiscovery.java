@@ -4,6 +4,7 @@ import static org.openhab.binding.heos.HeosBindingConstants.*;
 import static org.openhab.binding.heos.resources.HeosConstants.*;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -27,6 +28,14 @@ public class HeosPlayerDiscovery extends AbstractDiscoveryService {
     private final static int INITIAL_DELAY = 5;
     private final static int SCAN_INTERVAL = 20;
 
+    /*
+     * A burst of change events is folded into one rescan which starts when no
+     * event arrived for QUIET_PERIOD ms, but at the latest MAX_RESCAN_DELAY ms
+     * after the first event of the burst.
+     */
+    private final static int QUIET_PERIOD = 500;
+    private final static int MAX_RESCAN_DELAY = 3000;
+
     private Logger logger = LoggerFactory.getLogger(HeosPlayerDiscovery.class);
 
     private HeosBridgeHandler bridge;
@@ -34,6 +43,34 @@ public class HeosPlayerDiscovery extends AbstractDiscoveryService {
     private PlayerScan scanningRunnable;
 
     private ScheduledFuture<?> scanningJob;
+    /*
+     * Guards the rescan fields, so a change event is not blocked by a running scan
+     */
+    private final Object rescanLock = new Object();
+    private ScheduledFuture<?> rescanJob;
+    private long firstRescanRequest = 0;
+    private long executedScans = 0;
+    private long suppressedScans = 0;
+
+    private final Runnable rescanRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            synchronized (rescanLock) {
+                firstRescanRequest = 0;
+                executedScans++;
+            }
+            logger.debug("HEOS rescan started. {} rescans executed, {} suppressed", getExecutedScans(),
+                    getSuppressedScans());
+            scan(false);
+        }
+    };
+
+    /*
+     * The players and groups of the last scan, indexed by their thing UID
+     */
+    private HashMap<ThingUID, DiscoveryResult> knownPlayers = new HashMap<>();
+    private HashMap<ThingUID, DiscoveryResult> knownGroups = new HashMap<>();
 
     public HeosPlayerDiscovery(HeosBridgeHandler bridge) throws IllegalArgumentException {
         super(20);
@@ -54,102 +91,136 @@ public class HeosPlayerDiscovery extends AbstractDiscoveryService {
         return supportedThings;
     }
 
+    /**
+     * A scan started by the user announces all players and groups, because
+     * results which are not announced again are removed from the inbox.
+     */
+
     @Override
     protected void startScan() {
+        scan(true);
+    }
+
+    /**
+     * Scans for players and groups. New players and groups and players and
+     * groups whose properties changed are announced, groups which do not
+     * exist any longer are removed.
+     *
+     * @param all true to announce all players and groups, false to announce only the difference to the former scan
+     */
+
+    private synchronized void scan(boolean all) {
 
         logger.info("Start scan for HEOS Player");
 
-        HashMap<String, HeosPlayer> playerMap = new HashMap<>();
-        playerMap = bridge.getNewPlayer();
+        HashMap<ThingUID, DiscoveryResult> players = new HashMap<>();
+        HashMap<String, HeosPlayer> playerMap = bridge.getNewPlayer();
+        ThingUID bridgeUID = bridge.getThing().getUID();
 
         if (playerMap == null) {
-            // Debug
-            System.out.println("Debug: Player Map = Null");
-
+            // The players could not be fetched, so the known players are kept
+            logger.warn("HEOS Players could not be fetched");
+            players.putAll(knownPlayers);
         } else {
-
-            logger.info("Found: {} new Player", playerMap.size());
-            ThingUID bridgeUID = bridge.getThing().getUID();
-
-            for (String playerPID : playerMap.keySet()) {
-                HeosPlayer player = playerMap.get(playerPID);
-                ThingUID uid = new ThingUID(THING_TYPE_PLAYER, playerMap.get(playerPID).getPid());
+            for (HeosPlayer player : playerMap.values()) {
+                ThingUID uid = new ThingUID(THING_TYPE_PLAYER, player.getPid());
                 HashMap<String, Object> properties = new HashMap<String, Object>();
                 properties.put(NAME, player.getName());
                 properties.put(PID, player.getPid());
                 properties.put(PLAYER_TYPE, player.getModel());
                 properties.put(HOST, player.getIp());
                 properties.put(TYPE, PLAYER);
-                DiscoveryResult result = DiscoveryResultBuilder.create(uid).withLabel(player.getName())
-                        .withProperties(properties).withBridge(bridgeUID).build();
-                thingDiscovered(result);
+                players.put(uid, DiscoveryResultBuilder.create(uid).withLabel(player.getName())
+                        .withProperties(properties).withBridge(bridgeUID).build());
             }
-
         }
 
         logger.info("Start scan for HEOS Groups");
 
-        HashMap<String, HeosGroup> groupMap = new HashMap<>();
-
-        groupMap = bridge.getNewGroups();
-
-        if (playerMap == null) {
-            // Debug
-            System.out.println("Debug: Player Map = Null");
+        HashMap<ThingUID, DiscoveryResult> groups = new HashMap<>();
+        HashMap<String, HeosGroup> groupMap = bridge.getNewGroups();
 
+        if (groupMap == null) {
+            // The groups could not be fetched, so none of the known groups is removed
+            logger.warn("HEOS Groups could not be fetched");
+            groups.putAll(knownGroups);
         } else {
+            for (HeosGroup group : groupMap.values()) {
 
-            if (!groupMap.isEmpty()) {
-                logger.info("Found: {} new Groups", groupMap.size());
-                ThingUID bridgeUID = bridge.getThing().getUID();
-
-                for (String groupGID : groupMap.keySet()) {
-                    HeosGroup group = groupMap.get(groupGID);
-                    // ThingUID uid = new ThingUID(THING_TYPE_GROUP, groupMap.get(groupGID).getGid());
-
-                    // uses an unsigned hashCode from the group name to identify the group and generates the Thing UID.
-                    // Only the name does not work because it can consists non allowed characters. This also making it
-                    // possible to add player to a group. Keeping the Name lets the binding still identifying the group
-                    // as known
-
-                    ThingUID uid = new ThingUID(THING_TYPE_GROUP, group.getNameHash());
-                    HashMap<String, Object> properties = new HashMap<String, Object>();
-                    properties.put(NAME, group.getName());
-                    properties.put(GID, group.getGid());
-                    properties.put(LEADER, group.getLeader());
-                    properties.put(TYPE, GROUP);
-                    properties.put(NAME_HASH, group.getNameHash());
-                    properties.put(GROUP_MEMBER_HASH, group.getGroupMenberHash());
-                    DiscoveryResult result = DiscoveryResultBuilder.create(uid).withLabel(group.getName())
-                            .withProperties(properties).withBridge(bridgeUID).build();
-                    thingDiscovered(result);
-                }
+                // uses an unsigned hashCode from the group name to identify the group and generates the Thing UID.
+                // Only the name does not work because it can consists non allowed characters. This also making it
+                // possible to add player to a group. Keeping the Name lets the binding still identifying the group
+                // as known
 
-            } else {
-                logger.info("No HEOS Groups found");
+                ThingUID uid = new ThingUID(THING_TYPE_GROUP, group.getNameHash());
+                HashMap<String, Object> properties = new HashMap<String, Object>();
+                properties.put(NAME, group.getName());
+                properties.put(GID, group.getGid());
+                properties.put(LEADER, group.getLeader());
+                properties.put(TYPE, GROUP);
+                properties.put(NAME_HASH, group.getNameHash());
+                properties.put(GROUP_MEMBER_HASH, group.getGroupMenberHash());
+                groups.put(uid, DiscoveryResultBuilder.create(uid).withLabel(group.getName())
+                        .withProperties(properties).withBridge(bridgeUID).build());
             }
-
         }
 
-        removedGroups();
+        publishChanges(knownPlayers, players, all);
+        publishChanges(knownGroups, groups, all);
 
-    }
+        // Groups which are gone since the former scan or which existed as
+        // thing before the binding started
 
-    private void removedGroups() {
-        HashMap<String, HeosGroup> removedGroupMap = new HashMap<>();
-        removedGroupMap = bridge.getRemovedGroups();
-        if (!removedGroupMap.isEmpty()) {
-            for (String key : removedGroupMap.keySet()) {
-                // ThingUID uid = new ThingUID(THING_TYPE_GROUP, removedGroupMap.get(key).getGid());
-
-                // The same as above!
-                ThingUID uid = new ThingUID(THING_TYPE_GROUP, removedGroupMap.get(key).getNameHash());
-                logger.info("Removed HEOS Group: " + uid);
-                thingRemoved(uid);
+        HashSet<ThingUID> removedGroups = new HashSet<ThingUID>();
+        for (ThingUID uid : knownGroups.keySet()) {
+            if (!groups.containsKey(uid)) {
+                removedGroups.add(uid);
+            }
+        }
+        if (groupMap != null) {
+            for (HeosGroup group : bridge.getGroupChanges().getRemoved().values()) {
+                ThingUID uid = new ThingUID(THING_TYPE_GROUP, group.getNameHash());
+                if (!groups.containsKey(uid)) {
+                    removedGroups.add(uid);
+                }
             }
+        }
+        for (ThingUID uid : removedGroups) {
+            logger.info("Removed HEOS Group: " + uid);
+            thingRemoved(uid);
+        }
 
+        // Players which are not reported any longer are only forgotten. A player
+        // in standby shall not remove its thing. It is announced again when it is back.
+
+        for (ThingUID uid : knownPlayers.keySet()) {
+            if (!players.containsKey(uid)) {
+                logger.info("HEOS Player {} not found any longer", uid);
+            }
         }
 
+        knownPlayers = players;
+        knownGroups = groups;
+    }
+
+    private void publishChanges(HashMap<ThingUID, DiscoveryResult> known, HashMap<ThingUID, DiscoveryResult> found,
+            boolean all) {
+
+        int added = 0;
+        int changed = 0;
+        for (DiscoveryResult result : found.values()) {
+            DiscoveryResult former = known.get(result.getThingUID());
+            if (former == null) {
+                added++;
+                thingDiscovered(result);
+            } else if (!former.getProperties().equals(result.getProperties())) {
+                changed++;
+                thingDiscovered(result);
+            } else if (all) {
+                thingDiscovered(result);
+            }
+        }
+        logger.info("Found: {} new and {} changed of {} Players and Groups", added, changed, found.size());
     }
 
     @Override
@@ -184,18 +255,55 @@ public class HeosPlayerDiscovery extends AbstractDiscoveryService {
         removeOlderResults(getTimestampOfLastScan());
     }
 
+    /**
+     * Schedules a scan for changed players and groups. Each call within a burst
+     * of change events postpones the scan until the events stopped for
+     * {@value #QUIET_PERIOD} ms. The scan is not postponed longer than
+     * {@value #MAX_RESCAN_DELAY} ms after the first call.
+     */
+
     public void scanForNewPlayers() {
 
-        scanningRunnable.run();
-        // Debug: does not work....
-        // removeOlderResults(getTimestampOfLastScan());
+        synchronized (rescanLock) {
+            long now = System.currentTimeMillis();
+            long delay = QUIET_PERIOD;
+            if (firstRescanRequest != 0 && rescanJob != null && rescanJob.cancel(false)) {
+                suppressedScans++;
+                delay = Math.max(0, Math.min(QUIET_PERIOD, firstRescanRequest + MAX_RESCAN_DELAY - now));
+            } else {
+                firstRescanRequest = now;
+            }
+            rescanJob = AbstractDiscoveryService.scheduler.schedule(rescanRunnable, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     *
+     * @return the number of rescans executed after change events
+     */
+
+    public long getExecutedScans() {
+        synchronized (rescanLock) {
+            return executedScans;
+        }
+    }
+
+    /**
+     *
+     * @return the number of change events which did not cause an own rescan
+     */
+
+    public long getSuppressedScans() {
+        synchronized (rescanLock) {
+            return suppressedScans;
+        }
     }
 
     public class PlayerScan implements Runnable {
 
         @Override
         public void run() {
-            startScan();
+            scan(false);
 
         }
 
@@ -0,0 +1,79 @@
+package org.openhab.binding.heos.resources;
+
+import static org.openhab.binding.heos.resources.HeosConstants.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link HeosBatchResult} contains the responses of a command which was
+ * send to several players or groups at once. The responses are stored per
+ * pid or gid in the order the players were handed to the batch.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosBatchResult {
+
+    private final Map<String, HeosResponse> responses;
+
+    /**
+     *
+     * @param responses the response per pid or gid, {@code null} if no response was received
+     */
+
+    public HeosBatchResult(LinkedHashMap<String, HeosResponse> responses) {
+        this.responses = Collections.unmodifiableMap(responses);
+    }
+
+    /**
+     *
+     * @param pid the pid of the player or the gid of the group
+     * @return the response or {@code null} if the command could not be send or was not answered
+     */
+
+    public HeosResponse getResponse(String pid) {
+        return responses.get(pid);
+    }
+
+    public boolean isSuccess(String pid) {
+
+        HeosResponse response = responses.get(pid);
+        return response != null && SUCCESS.equals(response.getEvent().getResult());
+    }
+
+    public boolean isAllSuccessful() {
+        return getFailed().isEmpty();
+    }
+
+    /**
+     *
+     * @return the pids and gids the command failed for
+     */
+
+    public List<String> getFailed() {
+
+        List<String> failed = new ArrayList<String>();
+        for (String pid : responses.keySet()) {
+            if (!isSuccess(pid)) {
+                failed.add(pid);
+            }
+        }
+        return failed;
+    }
+
+    public Map<String, HeosResponse> getResponses() {
+        return responses;
+    }
+
+    @Override
+    public String toString() {
+        return (responses.size() - getFailed().size()) + " of " + responses.size() + " successful, failed: "
+                + getFailed();
+    }
+
+}
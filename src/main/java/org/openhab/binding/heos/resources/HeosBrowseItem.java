@@ -0,0 +1,92 @@
+package org.openhab.binding.heos.resources;
+
+/**
+ * The {@link HeosBrowseItem} is a single entry of a music source as received
+ * by the {@code browse} command, e.g. a favorite or a playlist. It is filled
+ * by the {@link HeosJsonParser} and not changed afterwards.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosBrowseItem {
+
+    private final static String YES = "yes";
+
+    private String name;
+    private String type;
+    private String container;
+    private String playable;
+    private String image_url;
+    private String mid;
+    private String cid;
+    private String sid;
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public boolean isContainer() {
+        return YES.equals(container);
+    }
+
+    public boolean isPlayable() {
+        return YES.equals(playable);
+    }
+
+    public String getImage_url() {
+        return image_url;
+    }
+
+    public String getMid() {
+        return mid;
+    }
+
+    public String getCid() {
+        return cid;
+    }
+
+    public String getSid() {
+        return sid;
+    }
+
+    void setValue(String key, String value) {
+
+        switch (key) {
+            case "name":
+                name = value;
+                break;
+            case "type":
+                type = value;
+                break;
+            case "container":
+                container = value;
+                break;
+            case "playable":
+                playable = value;
+                break;
+            case "image_url":
+                image_url = value;
+                break;
+            case "mid":
+                mid = value;
+                break;
+            case "cid":
+                cid = value;
+                break;
+            case "sid":
+                sid = value;
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,378 @@
+package org.openhab.binding.heos.resources;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.openhab.binding.heos.api.HeosEventController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HeosConnectionPool} holds several command connections to one
+ * HEOS bridge. The HEOS system accepts several connections at the same time,
+ * so slow commands like browsing a source do not delay control commands
+ * like setting the volume.
+ *
+ * The connections are divided into two lanes. The control lane handles the
+ * commands which control a player or group. The browse lane handles browse
+ * commands and the discovery of players and groups. If the pool has only one
+ * connection both lanes share it.
+ *
+ * Within the control lane every player and group is pinned to one connection
+ * by the hash of its pid or gid. So the commands of a player are send in order
+ * and a queued volume command can be replaced by a later one. Only if the pinned
+ * connection is not connected the next connected one of the lane is used.
+ * Commands without pid or gid and browse commands are send on the connection
+ * with the least pending commands.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosConnectionPool {
+
+    public final static String CONTROL_LANE = "control";
+    public final static String BROWSE_LANE = "browse";
+
+    public final static int DEFAULT_SIZE = 2;
+
+    private final static String[] BROWSE_COMMANDS = { "heos://browse/", "heos://player/get_players",
+            "heos://player/get_player_info", "heos://player/get_queue", "heos://group/get_groups",
+            "heos://group/get_group_info" };
+
+    private final HeosJsonParser parser;
+    private final HeosEventController eventController;
+    private final HeosEventQueue eventQueue;
+    private final ScheduledExecutorService scheduler;
+
+    private int size = DEFAULT_SIZE;
+
+    private volatile List<HeosSendCommand> connections = Collections.emptyList();
+    private volatile List<HeosSendCommand> controlLane = Collections.emptyList();
+    private volatile List<HeosSendCommand> browseLane = Collections.emptyList();
+
+    private Logger logger = LoggerFactory.getLogger(HeosConnectionPool.class);
+
+    public HeosConnectionPool(HeosJsonParser parser, HeosEventController eventController, HeosEventQueue eventQueue,
+            ScheduledExecutorService scheduler) {
+
+        this.parser = parser;
+        this.eventController = eventController;
+        this.eventQueue = eventQueue;
+        this.scheduler = scheduler;
+        this.connections = Collections
+                .singletonList(new HeosSendCommand(null, parser, eventController, eventQueue, scheduler));
+        this.controlLane = connections;
+        this.browseLane = connections;
+    }
+
+    /**
+     * Sets the number of command connections. The size is used
+     * when the pool connects the next time.
+     *
+     * @param size the number of connections, at least 1
+     */
+
+    public synchronized void setSize(int size) {
+        this.size = Math.max(1, size);
+    }
+
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Closes the former connections and opens the connections of the pool.
+     * If an additional connection can not be opened the pool works with
+     * less connections.
+     *
+     * @param ip the IP address of the HEOS bridge
+     * @param port the port of the HEOS CLI
+     * @return true if at least one connection is established
+     * @throws SocketException if the first connection could not be established
+     * @throws IOException
+     */
+
+    public synchronized boolean connect(String ip, int port) throws SocketException, IOException {
+
+        disconnect();
+
+        List<HeosSendCommand> newConnections = new ArrayList<HeosSendCommand>(size);
+        for (int i = 0; i < size; i++) {
+            NioTelnet client = new NioTelnet();
+            if (i == 0) {
+                client.connect(ip, port);
+            } else {
+                try {
+                    client.connect(ip, port);
+                } catch (IOException e) {
+                    logger.warn("Could not open HEOS command connection {} of {}: {}", i + 1, size, e.getMessage());
+                    continue;
+                }
+            }
+            if (client.isConnected()) {
+                newConnections.add(new HeosSendCommand(client, parser, eventController, eventQueue, scheduler));
+            }
+        }
+
+        if (newConnections.isEmpty()) {
+            newConnections.add(new HeosSendCommand(null, parser, eventController, eventQueue, scheduler));
+        }
+
+        int controlSize = Math.max(1, newConnections.size() / 2);
+        connections = Collections.unmodifiableList(newConnections);
+        controlLane = connections.subList(0, controlSize);
+        browseLane = controlSize < connections.size() ? connections.subList(controlSize, connections.size())
+                : controlLane;
+
+        logger.info("HEOS connection pool opened {} of {} command connections", getConnectedCount(), size);
+        return getConnectedCount() > 0;
+    }
+
+    /**
+     * Closes all connections of the pool. The pending and queued requests
+     * of the connections are failed, so no caller waits for a response
+     * which never arrives.
+     */
+
+    public synchronized void disconnect() {
+
+        for (HeosSendCommand connection : connections) {
+            connection.failPendingRequests("HEOS connection closed");
+            NioTelnet client = connection.getTelnetClient();
+            if (client != null && client.isConnected()) {
+                try {
+                    client.disconnect();
+                } catch (IOException e) {
+                    logger.debug("Could not close HEOS command connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Selects the connection of the lane the command belongs to. Control commands
+     * of a player or group are send on the connection the player or group is pinned to.
+     *
+     * @param command the command to be send
+     * @return the connection the command shall be send on
+     */
+
+    public HeosSendCommand select(String command) {
+
+        String lane = laneOf(command);
+        if (CONTROL_LANE.equals(lane)) {
+            String target = HeosRequest.targetOf(command);
+            if (target != null) {
+                return selectPinned(getLane(lane), target);
+            }
+        }
+        return selectFromLane(lane);
+    }
+
+    /*
+     * Selects the connection the id is pinned to or the next connected one of the lane
+     */
+
+    private HeosSendCommand selectPinned(List<HeosSendCommand> candidates, String id) {
+
+        int pinned = (id.hashCode() & Integer.MAX_VALUE) % candidates.size();
+        for (int i = 0; i < candidates.size(); i++) {
+            HeosSendCommand connection = candidates.get((pinned + i) % candidates.size());
+            if (connection.isConnected()) {
+                return connection;
+            }
+        }
+        return getPrimaryConnection();
+    }
+
+    /**
+     * Selects the least busy connection of the lane
+     *
+     * @param lane {@link #CONTROL_LANE} or {@link #BROWSE_LANE}
+     * @return the connection with the least pending commands
+     */
+
+    public HeosSendCommand selectFromLane(String lane) {
+
+        List<HeosSendCommand> candidates = getLane(lane);
+        HeosSendCommand selected = null;
+        int selectedPending = Integer.MAX_VALUE;
+        for (HeosSendCommand connection : candidates) {
+            if (!connection.isConnected()) {
+                continue;
+            }
+            int pending = connection.getPendingRequestCount();
+            if (pending < selectedPending) {
+                selected = connection;
+                selectedPending = pending;
+            }
+        }
+        if (selected == null) {
+            selected = getPrimaryConnection();
+        }
+        return selected;
+    }
+
+    /**
+     *
+     * @param command the command to be send
+     * @return {@link #BROWSE_LANE} for browse and discovery commands, else {@link #CONTROL_LANE}
+     */
+
+    public static String laneOf(String command) {
+
+        for (String browseCommand : BROWSE_COMMANDS) {
+            if (command.startsWith(browseCommand)) {
+                return BROWSE_LANE;
+            }
+        }
+        return CONTROL_LANE;
+    }
+
+    /**
+     *
+     * @return the first connection of the pool. Not connected if the pool never connected
+     */
+
+    public HeosSendCommand getPrimaryConnection() {
+        return connections.get(0);
+    }
+
+    public List<HeosSendCommand> getConnections() {
+        return connections;
+    }
+
+    private List<HeosSendCommand> getLane(String lane) {
+        if (BROWSE_LANE.equals(lane)) {
+            return browseLane;
+        }
+        return controlLane;
+    }
+
+    public int getConnectedCount() {
+
+        int connected = 0;
+        for (HeosSendCommand connection : connections) {
+            if (connection.isConnected()) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    /**
+     *
+     * @param lane {@link #CONTROL_LANE} or {@link #BROWSE_LANE}
+     * @return the number of commands of the lane which are not answered yet
+     */
+
+    public int getPendingRequests(String lane) {
+
+        int pending = 0;
+        for (HeosSendCommand connection : getLane(lane)) {
+            pending += connection.getPendingRequestCount();
+        }
+        return pending;
+    }
+
+    /**
+     *
+     * @param lane {@link #CONTROL_LANE} or {@link #BROWSE_LANE}
+     * @return the number of commands send on the lane since the pool connected
+     */
+
+    public long getSentCommands(String lane) {
+
+        long sent = 0;
+        for (HeosSendCommand connection : getLane(lane)) {
+            sent += connection.getSentCommands();
+        }
+        return sent;
+    }
+
+    /**
+     *
+     * @param lane {@link #CONTROL_LANE} or {@link #BROWSE_LANE}
+     * @return the share of the connections of the lane which currently wait for a response
+     */
+
+    public double getUtilization(String lane) {
+
+        List<HeosSendCommand> laneConnections = getLane(lane);
+        int busy = 0;
+        for (HeosSendCommand connection : laneConnections) {
+            if (connection.getPendingRequestCount() > 0) {
+                busy++;
+            }
+        }
+        return (double) busy / laneConnections.size();
+    }
+
+    /**
+     *
+     * @param priority the priority, e.g. {@link HeosRequest#PRIORITY_INTERACTIVE}
+     * @return the number of commands of the priority waiting within the queues of all connections
+     */
+
+    public int getQueueDepth(int priority) {
+
+        int depth = 0;
+        for (HeosSendCommand connection : connections) {
+            depth += connection.getQueueDepth(priority);
+        }
+        return depth;
+    }
+
+    /**
+     *
+     * @param priority the priority, e.g. {@link HeosRequest#PRIORITY_INTERACTIVE}
+     * @return the average time in ms a command of the priority waited before it was send
+     */
+
+    public long getAverageQueueWait(int priority) {
+
+        long waitTime = 0;
+        long requests = 0;
+        for (HeosSendCommand connection : connections) {
+            waitTime += connection.getQueueWaitTime(priority);
+            requests += connection.getDequeuedRequests(priority);
+        }
+        return requests == 0 ? 0 : waitTime / requests;
+    }
+
+    /**
+     *
+     * @return the number of queued commands which were replaced by a later command
+     */
+
+    public long getCoalescedRequests() {
+
+        long coalesced = 0;
+        for (HeosSendCommand connection : connections) {
+            coalesced += connection.getCoalescedRequests();
+        }
+        return coalesced;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%d/%d connected, control: %d pending %d sent %.0f%% busy, browse: %d pending %d sent %.0f%% busy",
+                getConnectedCount(), connections.size(), getPendingRequests(CONTROL_LANE),
+                getSentCommands(CONTROL_LANE), getUtilization(CONTROL_LANE) * 100, getPendingRequests(BROWSE_LANE),
+                getSentCommands(BROWSE_LANE), getUtilization(BROWSE_LANE) * 100)
+                + String.format(", queued interactive/default/poll: %d/%d/%d, average wait: %d/%d/%d ms",
+                        getQueueDepth(HeosRequest.PRIORITY_INTERACTIVE), getQueueDepth(HeosRequest.PRIORITY_DEFAULT),
+                        getQueueDepth(HeosRequest.PRIORITY_POLL),
+                        getAverageQueueWait(HeosRequest.PRIORITY_INTERACTIVE),
+                        getAverageQueueWait(HeosRequest.PRIORITY_DEFAULT),
+                        getAverageQueueWait(HeosRequest.PRIORITY_POLL))
+                + String.format(", coalesced: %d", getCoalescedRequests());
+    }
+
+}
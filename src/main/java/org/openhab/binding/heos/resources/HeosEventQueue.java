@@ -0,0 +1,160 @@
+package org.openhab.binding.heos.resources;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.openhab.binding.heos.api.HeosEventController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HeosEventQueue} decouples the input listener of the connection
+ * from the {@link HeosEventController}. The input listener only adds the
+ * received event to the queue and is never blocked by the handlers. The
+ * events are handed to the event controller one after the other by the
+ * dispatch executor. The dispatch executor can be exchanged at runtime,
+ * a running dispatcher finishes on the former executor.
+ *
+ * The queue is bounded. An event replaces a queued event of the same
+ * command and pid/gid, because only the latest state is of interest. If
+ * the queue is full the oldest event is dropped.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosEventQueue {
+
+    private final HeosEventController eventController;
+    private volatile Executor dispatchExecutor;
+    private final int capacity;
+
+    private final LinkedHashMap<String, HeosResponse> queue;
+    private boolean dispatching = false;
+    private long droppedEvents = 0;
+
+    private final Runnable dispatcher = new Runnable() {
+
+        @Override
+        public void run() {
+            dispatch();
+        }
+    };
+
+    private Logger logger = LoggerFactory.getLogger(HeosEventQueue.class);
+
+    /**
+     *
+     * @param eventController the controller the events are handed to
+     * @param dispatchExecutor the executor which runs the dispatching
+     * @param capacity the maximum number of queued events
+     */
+
+    public HeosEventQueue(HeosEventController eventController, Executor dispatchExecutor, int capacity) {
+
+        this.eventController = eventController;
+        this.dispatchExecutor = dispatchExecutor;
+        this.capacity = capacity;
+        this.queue = new LinkedHashMap<String, HeosResponse>(capacity * 4 / 3 + 1);
+    }
+
+    /**
+     * Sets the executor which runs the dispatching of the events
+     *
+     * @param dispatchExecutor the executor which runs the dispatching
+     */
+
+    public void setDispatchExecutor(Executor dispatchExecutor) {
+        this.dispatchExecutor = dispatchExecutor;
+    }
+
+    /**
+     * Adds the event to the queue. The method never blocks.
+     *
+     * @param event the received event
+     */
+
+    public void offer(HeosResponse event) {
+
+        String key = key(event);
+        boolean startDispatcher;
+        synchronized (queue) {
+            if (queue.remove(key) != null) {
+                droppedEvents++;
+            } else if (queue.size() >= capacity) {
+                Iterator<HeosResponse> oldest = queue.values().iterator();
+                logger.debug("HEOS event queue full. Dropping event: {}", oldest.next().getEvent().getCommand());
+                oldest.remove();
+                droppedEvents++;
+            }
+            queue.put(key, event);
+            startDispatcher = !dispatching;
+            dispatching = true;
+        }
+        if (startDispatcher) {
+            try {
+                dispatchExecutor.execute(dispatcher);
+            } catch (RejectedExecutionException e) {
+                logger.warn("HEOS event dispatcher not available: {}", e.getMessage());
+                synchronized (queue) {
+                    dispatching = false;
+                }
+            }
+        }
+    }
+
+    /*
+     * Hands the events to the event controller till the queue is empty. Only one
+     * dispatcher runs at a time, so the events are handled in the received order.
+     */
+
+    private void dispatch() {
+
+        while (true) {
+            HeosResponse event;
+            synchronized (queue) {
+                Iterator<HeosResponse> oldest = queue.values().iterator();
+                if (!oldest.hasNext()) {
+                    dispatching = false;
+                    return;
+                }
+                event = oldest.next();
+                oldest.remove();
+            }
+            try {
+                eventController.handleEvent(event, 1);
+            } catch (RuntimeException e) {
+                logger.warn("HEOS event '{}' could not be handled: {}", event.getEvent().getCommand(),
+                        e.getMessage());
+            }
+        }
+    }
+
+    private String key(HeosResponse event) {
+
+        HeosMessage message = event.getEvent().getMessages();
+        String pid = message.get(HeosConstants.PID);
+        String gid = message.get(HeosConstants.GID);
+        return event.getEvent().getCommand() + (pid == null ? "" : "|" + pid) + (gid == null ? "" : "#" + gid);
+    }
+
+    /**
+     *
+     * @return the number of events which were replaced or dropped since start
+     */
+
+    public long getDroppedEvents() {
+        synchronized (queue) {
+            return droppedEvents;
+        }
+    }
+
+    public int size() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+}
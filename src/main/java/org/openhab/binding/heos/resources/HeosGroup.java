@@ -1,24 +1,19 @@
 package org.openhab.binding.heos.resources;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 
 public class HeosGroup extends HeosMediaObject {
 
-    private final String[] supportedGroupInfo = { "name", "gip", "leader" };
-    private final String[] supportedGroupStates = { "state", "level", "mute" };
-
-    private HashMap<String, String> groupInfo;
-    private HashMap<String, String> groupState;
-    private List<HashMap<String, String>> playerList;
+    private List<HeosGroupMember> playerList = new ArrayList<HeosGroupMember>(5);
 
     // Group Infos Variables
     private String name;
     private String gid;
     private String leader;
-    private String nameHash;
+    private String nameHash = "";
     private String groupMembersHash;
 
     // Group State Variables
@@ -26,57 +21,23 @@ public class HeosGroup extends HeosMediaObject {
     private String level;
     private String mute;
 
-    private final static String PID = "pid";
-    private final static String GID = "gid";
-    private final static String NAME = "name";
-    private final static String LEADER = "leader";
-    private final static String STATE = "state";
-    private final static String LEVEL = "level";
-    private final static String MUTE = "mute";
-
     public HeosGroup() {
 
-        initGroup();
-    }
-
-    public void updateGroupInfo(HashMap<String, String> values) {
-
-        groupInfo = values;
-        for (String key : values.keySet()) {
-            if (key.equals(NAME)) {
-                name = values.get(key);
-                if (values.get(key) != null) {
-                    nameHash = Integer.toUnsignedString(values.get(key).hashCode());
-                } else {
-                    nameHash = "";
-                }
-
-            }
-            if (key.equals(LEADER)) {
-                leader = values.get(key);
-            }
-            if (key.equals(GID)) {
-                gid = values.get(key);
-            }
-        }
-
     }
 
-    public void updateGroupState(HashMap<String, String> values) {
+    /**
+     * Updates the name, the gid, the leader and the members of the group.
+     *
+     * @param info the group as received by the HEOS system
+     */
 
-        groupState = values;
-        for (String key : values.keySet()) {
-            if (key.equals(STATE)) {
-                state = values.get(key);
-            }
-            if (key.equals(LEVEL)) {
-                level = values.get(key);
-            }
-            if (key.equals(MUTE)) {
-                mute = values.get(key);
-            }
+    public void updateGroupInfo(HeosGroupInfo info) {
 
-        }
+        name = info.getName();
+        nameHash = name == null ? "" : Integer.toUnsignedString(name.hashCode());
+        gid = info.getGid();
+        leader = info.getLeader();
+        updateGroupPlayers(info.getMembers());
 
     }
 
@@ -85,55 +46,34 @@ public class HeosGroup extends HeosMediaObject {
      *
      * Generates the {@code groupMembersHash} from the group member PIDs
      *
-     * @param playerList The List of the Player (player as: HashMap<String,String>)
+     * @param playerList The List of the group members
      */
 
-    public void updateGroupPlayers(List<HashMap<String, String>> playerList) {
-        this.playerList = playerList;
-        List<String> groupMemberPidList = new ArrayList<String>(10);
-        for (int i = 0; i < this.playerList.size(); i++) {
-            HashMap<String, String> player = playerList.get(i);
-            groupMemberPidList.add(player.get(PID));
-
+    public void updateGroupPlayers(List<HeosGroupMember> playerList) {
+        this.playerList = new ArrayList<>(playerList);
+        List<String> groupMemberPidList = new ArrayList<String>(playerList.size());
+        for (int i = 0; i < playerList.size(); i++) {
+            groupMemberPidList.add(playerList.get(i).getPid());
         }
-        Collections.sort(groupMemberPidList);
-        groupMembersHash = Integer.toUnsignedString(groupMemberPidList.hashCode());
+        groupMembersHash = memberHashOf(groupMemberPidList);
 
     }
 
-    private void initGroup() {
-
-        groupInfo = new HashMap<>(8);
-        groupState = new HashMap<>(5);
-        playerList = new ArrayList<>(5);
-
-        for (String key : supportedGroupInfo) {
-            groupInfo.put(key, null);
-        }
-
-        for (String key : supportedGroupStates) {
-            groupState.put(key, null);
-        }
-
-        updateGroupInfo(groupInfo);
-        updateGroupState(groupState);
-
-    }
-
-    public HashMap<String, String> getGroupInfo() {
-        return groupInfo;
-    }
+    /**
+     *
+     * @param pids the PIDs of the group members in any order
+     * @return the hash of the members, equal to {@link #getGroupMenberHash()} of a group with these members
+     */
 
-    public void setGroupInfo(HashMap<String, String> groupInfo) {
-        this.groupInfo = groupInfo;
-    }
+    public static String memberHashOf(Collection<String> pids) {
 
-    public HashMap<String, String> getGroupState() {
-        return groupState;
+        List<String> sortedPids = new ArrayList<String>(pids);
+        Collections.sort(sortedPids);
+        return Integer.toUnsignedString(sortedPids.hashCode());
     }
 
-    public void setGroupState(HashMap<String, String> groupState) {
-        this.groupState = groupState;
+    public List<HeosGroupMember> getPlayerList() {
+        return playerList;
     }
 
     public String getName() {
@@ -142,7 +82,6 @@ public class HeosGroup extends HeosMediaObject {
 
     public void setName(String name) {
         this.name = name;
-        groupInfo.put("name", name);
     }
 
     public String getGid() {
@@ -151,7 +90,6 @@ public class HeosGroup extends HeosMediaObject {
 
     public void setGid(String gid) {
         this.gid = gid;
-        groupInfo.put("gid", gid);
     }
 
     public String getLeader() {
@@ -160,7 +98,6 @@ public class HeosGroup extends HeosMediaObject {
 
     public void setLeader(String leader) {
         this.leader = leader;
-        groupInfo.put("leader", leader);
     }
 
     public String getState() {
@@ -169,7 +106,6 @@ public class HeosGroup extends HeosMediaObject {
 
     public void setState(String state) {
         this.state = state;
-        groupInfo.put("state", state);
     }
 
     public String getLevel() {
@@ -178,7 +114,6 @@ public class HeosGroup extends HeosMediaObject {
 
     public void setLevel(String level) {
         this.level = level;
-        groupInfo.put("level", level);
     }
 
     public String getMute() {
@@ -187,15 +122,6 @@ public class HeosGroup extends HeosMediaObject {
 
     public void setMute(String mute) {
         this.mute = mute;
-        groupInfo.put("mute", mute);
-    }
-
-    public String[] getSupportedGroupInfo() {
-        return supportedGroupInfo;
-    }
-
-    public String[] getSupportedGroupStates() {
-        return supportedGroupStates;
     }
 
     public String getNameHash() {
@@ -0,0 +1,74 @@
+package org.openhab.binding.heos.resources;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@link HeosGroupInfo} contains the information of a single group
+ * and its members as received by the {@code get_groups} and
+ * {@code get_group_info} commands. It is filled by the {@link HeosJsonParser}
+ * and not changed afterwards.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosGroupInfo {
+
+    private String name;
+    private String gid;
+    private List<HeosGroupMember> members = new ArrayList<HeosGroupMember>(4);
+
+    public String getName() {
+        return name;
+    }
+
+    public String getGid() {
+        return gid;
+    }
+
+    /**
+     *
+     * @return the players of the group
+     */
+
+    public List<HeosGroupMember> getMembers() {
+        return members;
+    }
+
+    /**
+     *
+     * @return the pid of the group leader or {@code null} if no leader is known
+     */
+
+    public String getLeader() {
+        for (int i = 0; i < members.size(); i++) {
+            if (members.get(i).isLeader()) {
+                return members.get(i).getPid();
+            }
+        }
+        return null;
+    }
+
+    void setValue(String key, String value) {
+
+        switch (key) {
+            case "name":
+                name = value;
+                break;
+            case "gid":
+                gid = value;
+                break;
+        }
+    }
+
+    void addMember(HeosGroupMember member) {
+        members.add(member);
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + gid + ")";
+    }
+
+}
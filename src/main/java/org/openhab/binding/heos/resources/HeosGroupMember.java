@@ -0,0 +1,54 @@
+package org.openhab.binding.heos.resources;
+
+/**
+ * The {@link HeosGroupMember} is a player which is part of a group.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosGroupMember {
+
+    private final static String LEADER = "leader";
+
+    private String name;
+    private String pid;
+    private String role;
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPid() {
+        return pid;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isLeader() {
+        return LEADER.equals(role);
+    }
+
+    void setValue(String key, String value) {
+
+        switch (key) {
+            case "name":
+                name = value;
+                break;
+            case "pid":
+                pid = value;
+                break;
+            case "role":
+                role = value;
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + pid + ", " + role + ")";
+    }
+
+}
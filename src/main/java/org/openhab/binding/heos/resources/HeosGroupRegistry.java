@@ -0,0 +1,204 @@
+package org.openhab.binding.heos.resources;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The {@link HeosGroupRegistry} holds the groups of the HEOS system. The
+ * groups are indexed by gid, name hash and member hash and the players by
+ * the group they are member of, so every lookup is done without iterating
+ * over the groups.
+ *
+ * The groups are identified by their name hash, which is also used for the
+ * thing UID of the group. An update compares the reported groups with the
+ * registered ones by their index, so it takes linear time and returns the
+ * groups which were added, removed or changed.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosGroupRegistry {
+
+    private final HashMap<String, HeosGroup> groupsByNameHash = new HashMap<String, HeosGroup>();
+    private final HashMap<String, HeosGroup> groupsByGid = new HashMap<String, HeosGroup>();
+    private final HashMap<String, HeosGroup> groupsByMemberHash = new HashMap<String, HeosGroup>();
+    private final HashMap<String, HeosGroup> groupsByPlayer = new HashMap<String, HeosGroup>();
+
+    // Reused by every update, only accessed under the lock of the registry
+    private final HashSet<String> reported = new HashSet<String>();
+
+    /**
+     * Registers a group which is known before the groups are reported by
+     * the HEOS system, e.g. an existing group thing. If the group is not
+     * reported by the next update it is part of the removed groups.
+     *
+     * @param group the group
+     */
+
+    public synchronized void register(HeosGroup group) {
+
+        HeosGroup former = groupsByNameHash.get(group.getNameHash());
+        if (former != null) {
+            unindex(former);
+        }
+        index(group);
+    }
+
+    /**
+     * Replaces the registered groups by the groups currently reported by
+     * the HEOS system.
+     *
+     * @param groups all groups of the HEOS system
+     * @return the groups which were added, removed or changed
+     */
+
+    public synchronized Changes update(Collection<HeosGroup> groups) {
+
+        Changes changes = new Changes();
+        int registered = groupsByNameHash.size();
+        int kept = 0;
+        reported.clear();
+
+        for (HeosGroup group : groups) {
+            reported.add(group.getNameHash());
+            HeosGroup former = groupsByNameHash.get(group.getNameHash());
+            if (former == null) {
+                changes.added.put(group.getNameHash(), group);
+            } else {
+                kept++;
+                if (isChanged(former, group)) {
+                    changes.changed.put(group.getNameHash(), group);
+                }
+                unindex(former);
+            }
+            index(group);
+        }
+
+        // Only if a registered group was not reported the groups have to be searched
+        if (kept < registered) {
+            for (HeosGroup group : groupsByNameHash.values()) {
+                if (!reported.contains(group.getNameHash())) {
+                    changes.removed.put(group.getNameHash(), group);
+                }
+            }
+            for (HeosGroup group : changes.removed.values()) {
+                unindex(group);
+            }
+        }
+        reported.clear();
+        return changes;
+    }
+
+    public synchronized HeosGroup getByNameHash(String nameHash) {
+        return groupsByNameHash.get(nameHash);
+    }
+
+    public synchronized HeosGroup getByGid(String gid) {
+        return groupsByGid.get(gid);
+    }
+
+    /**
+     *
+     * @param memberHash the hash of the member pids, see {@link HeosGroup#memberHashOf(Collection)}
+     * @return the group with exactly these members or {@code null}
+     */
+
+    public synchronized HeosGroup getByMemberHash(String memberHash) {
+        return groupsByMemberHash.get(memberHash);
+    }
+
+    /**
+     *
+     * @param pid the pid of the player
+     * @return the group the player is member of or {@code null} if the player is not grouped
+     */
+
+    public synchronized HeosGroup getGroupOfPlayer(String pid) {
+        return groupsByPlayer.get(pid);
+    }
+
+    /**
+     *
+     * @return a copy of all groups with their name hash as key
+     */
+
+    public synchronized HashMap<String, HeosGroup> getGroups() {
+        return new HashMap<String, HeosGroup>(groupsByNameHash);
+    }
+
+    private boolean isChanged(HeosGroup former, HeosGroup group) {
+        return !Objects.equals(former.getGid(), group.getGid())
+                || !Objects.equals(former.getLeader(), group.getLeader())
+                || !Objects.equals(former.getGroupMenberHash(), group.getGroupMenberHash());
+    }
+
+    private void index(HeosGroup group) {
+
+        groupsByNameHash.put(group.getNameHash(), group);
+        if (group.getGid() != null) {
+            groupsByGid.put(group.getGid(), group);
+        }
+        if (group.getGroupMenberHash() != null) {
+            groupsByMemberHash.put(group.getGroupMenberHash(), group);
+        }
+        for (HeosGroupMember member : group.getPlayerList()) {
+            groupsByPlayer.put(member.getPid(), group);
+        }
+    }
+
+    private void unindex(HeosGroup group) {
+
+        groupsByNameHash.remove(group.getNameHash(), group);
+        if (group.getGid() != null) {
+            groupsByGid.remove(group.getGid(), group);
+        }
+        if (group.getGroupMenberHash() != null) {
+            groupsByMemberHash.remove(group.getGroupMenberHash(), group);
+        }
+        for (HeosGroupMember member : group.getPlayerList()) {
+            groupsByPlayer.remove(member.getPid(), group);
+        }
+    }
+
+    /**
+     * The groups which changed with an update, each with the name hash as key
+     */
+
+    public static class Changes {
+
+        private final HashMap<String, HeosGroup> added = new HashMap<String, HeosGroup>();
+        private final HashMap<String, HeosGroup> removed = new HashMap<String, HeosGroup>();
+        private final HashMap<String, HeosGroup> changed = new HashMap<String, HeosGroup>();
+
+        public Map<String, HeosGroup> getAdded() {
+            return added;
+        }
+
+        public Map<String, HeosGroup> getRemoved() {
+            return removed;
+        }
+
+        /**
+         *
+         * @return the groups whose gid, leader or members changed
+         */
+
+        public Map<String, HeosGroup> getChanged() {
+            return changed;
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "added " + added.keySet() + ", removed " + removed.keySet() + ", changed " + changed.keySet();
+        }
+    }
+
+}
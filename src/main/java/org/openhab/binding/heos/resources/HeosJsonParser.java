@@ -1,51 +1,313 @@
 package org.openhab.binding.heos.resources;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import static org.openhab.binding.heos.resources.HeosConstants.*;
 
-public class HeosJsonParser {
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 
-    private HeosResponse response;
-    private HeosResponseEvent eventResponse = null;
-    private HeosResponsePayload payloadResponse = null;
-    Gson gson = null;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
-    public HeosJsonParser(HeosResponse response) {
+/**
+ * The {@link HeosJsonParser} decodes the JSON frames received from the
+ * HEOS system.
+ *
+ * The frame is read in a single pass by a {@link JsonReader}. The
+ * {@code heos} header and the {@code payload} are filled while reading,
+ * no intermediate JSON tree is build. The {@code message} is kept raw and
+ * decoded on demand by the {@link HeosMessage}. The payload is decoded by
+ * the command of the response directly into the typed value objects
+ * (e.g. {@link HeosPlayerInfo}). Sections which are not used by the
+ * binding (e.g. {@code options}) and payloads of other commands are skipped
+ * without being decoded.
+ *
+ * The parser keeps no state between two frames. Both connections to the
+ * HEOS system parse their frames in parallel with the same instance.
+ *
+ * @author Johannes Einig
+ *
+ */
 
-        this.response = response;
-        this.eventResponse = response.getEvent();
-        this.payloadResponse = response.getPayload();
+public class HeosJsonParser {
 
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(HeosResponseEvent.class, new HeosDeserializerEvent());
-        gsonBuilder.registerTypeAdapter(HeosResponsePayload.class, new HeosDeserializerPayload());
-        this.gson = gsonBuilder.create();
+    private final static String HEOS = "heos";
+    private final static String PAYLOAD = "payload";
+    private final static String COMMAND = "command";
+    private final static String RESULT = "result";
+    private final static String MESSAGE = "message";
+    private final static String PLAYERS = "players";
 
-    }
+    private final static String GET_PLAYERS = "player/get_players";
+    private final static String GET_PLAYER_INFO = "player/get_player_info";
+    private final static String GET_NOW_PLAYING_MEDIA = "player/get_now_playing_media";
+    private final static String GET_QUEUE = "player/get_queue";
+    private final static String GET_GROUPS = "group/get_groups";
+    private final static String GET_GROUP_INFO = "group/get_group_info";
+    private final static String BROWSE = "browse/browse";
 
-    public synchronized HeosResponse parseResult(String receivedMessage) {
-        // Debug!!!
-        // System.out.println(receivedMessage);
-        response.setRawResponseMessage(receivedMessage);
+    /**
+     * Parses a single frame received from the HEOS system. Every call
+     * returns a new {@link HeosResponse} so the response can be handed
+     * to the command which waits for it.
+     *
+     * @param receivedMessage the JSON frame
+     * @return the decoded response
+     * @throws JsonParseException if the frame is no valid HEOS response
+     */
 
-        this.eventResponse = gson.fromJson(receivedMessage, HeosResponseEvent.class);
-        this.payloadResponse = gson.fromJson(receivedMessage, HeosResponsePayload.class);
+    public HeosResponse parseResult(String receivedMessage) {
 
-        this.response.setEvent(eventResponse);
-        this.response.setPayload(payloadResponse);
+        HeosResponseEvent eventResponse = null;
+        HeosResponsePayload payloadResponse = null;
+
+        JsonReader reader = new JsonReader(new StringReader(receivedMessage));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (HEOS.equals(name)) {
+                    eventResponse = readEvent(reader);
+                } else if (PAYLOAD.equals(name) && eventResponse != null) {
+                    // The HEOS system always sends the heos section first
+                    payloadResponse = readPayload(reader, eventResponse.getCommand());
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonParseException(e.getMessage(), e);
+        }
+
+        if (eventResponse == null) {
+            throw new JsonParseException("HEOS response without heos section: " + receivedMessage);
+        }
+        if (payloadResponse == null) {
+            payloadResponse = HeosResponsePayload.empty();
+        }
 
         // Some times the messages get mixed up and additional informations are added to the pid Message.
         // This is just a simple check routine which checks if the pid is bigger than 9 chars.
         // Setting the pid to 0 can be used to check of message failed during further investigation
 
-        if (eventResponse.getMessagesMap().containsKey("pid")) {
-            if (eventResponse.getMessagesMap().get("pid").length() > 9) {
-                response.setPid("0");
-                return response;
+        String pid = eventResponse.getMessages().get(PID);
+        if (pid == null || pid.length() > 9) {
+            pid = "0";
+        }
+
+        return new HeosResponse(eventResponse, payloadResponse, pid, receivedMessage);
+    }
+
+    private HeosResponseEvent readEvent(JsonReader reader) throws IOException {
+
+        String command = null;
+        String result = "null";
+        String message = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (COMMAND.equals(name)) {
+                command = readString(reader);
+            } else if (RESULT.equals(name)) {
+                result = readString(reader);
+            } else if (MESSAGE.equals(name)) {
+                message = readString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new HeosResponseEvent(command, result, new HeosMessage(message));
+    }
+
+    /*
+     * Decodes the payload by the command of the response. The payload is either
+     * a single object or an array of objects. Payloads of commands which are not
+     * used by the binding (and the payload of events) are skipped.
+     */
+
+    private HeosResponsePayload readPayload(JsonReader reader, String command) throws IOException {
+
+        if (command == null) {
+            reader.skipValue();
+            return null;
+        }
+
+        boolean array;
+        switch (command) {
+            case GET_PLAYERS:
+            case GET_PLAYER_INFO:
+                List<HeosPlayerInfo> players = new ArrayList<HeosPlayerInfo>();
+                array = beginObjects(reader);
+                while (nextObject(reader, array)) {
+                    HeosPlayerInfo player = new HeosPlayerInfo();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        player.setValue(name, readString(reader));
+                    }
+                    reader.endObject();
+                    players.add(player);
+                }
+                endObjects(reader, array);
+                return new HeosResponsePayload(players, null, null, null, null);
+
+            case GET_GROUPS:
+            case GET_GROUP_INFO:
+                List<HeosGroupInfo> groups = new ArrayList<HeosGroupInfo>();
+                array = beginObjects(reader);
+                while (nextObject(reader, array)) {
+                    groups.add(readGroup(reader));
+                }
+                endObjects(reader, array);
+                return new HeosResponsePayload(null, groups, null, null, null);
+
+            case GET_NOW_PLAYING_MEDIA:
+                HeosMediaInfo media = null;
+                array = beginObjects(reader);
+                while (nextObject(reader, array)) {
+                    media = new HeosMediaInfo();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        media.setValue(name, readString(reader));
+                    }
+                    reader.endObject();
+                }
+                endObjects(reader, array);
+                return new HeosResponsePayload(null, null, media, null, null);
+
+            case BROWSE:
+                List<HeosBrowseItem> items = new ArrayList<HeosBrowseItem>();
+                array = beginObjects(reader);
+                while (nextObject(reader, array)) {
+                    HeosBrowseItem item = new HeosBrowseItem();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        item.setValue(name, readString(reader));
+                    }
+                    reader.endObject();
+                    items.add(item);
+                }
+                endObjects(reader, array);
+                return new HeosResponsePayload(null, null, null, items, null);
+
+            case GET_QUEUE:
+                List<HeosQueueItem> queue = new ArrayList<HeosQueueItem>();
+                array = beginObjects(reader);
+                while (nextObject(reader, array)) {
+                    HeosQueueItem item = new HeosQueueItem();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        item.setValue(name, readString(reader));
+                    }
+                    reader.endObject();
+                    queue.add(item);
+                }
+                endObjects(reader, array);
+                return new HeosResponsePayload(null, null, null, null, queue);
+
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    private HeosGroupInfo readGroup(JsonReader reader) throws IOException {
+
+        HeosGroupInfo group = new HeosGroupInfo();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (PLAYERS.equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    HeosGroupMember member = new HeosGroupMember();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String key = reader.nextName();
+                        member.setValue(key, readString(reader));
+                    }
+                    reader.endObject();
+                    group.addMember(member);
+                }
+                reader.endArray();
+            } else {
+                group.setValue(name, readString(reader));
+            }
+        }
+        reader.endObject();
+        return group;
+    }
+
+    /*
+     * The payload is either a single object or an array of objects. The three
+     * methods below iterate over both forms alike. Values which are no objects
+     * are skipped.
+     */
+
+    private boolean beginObjects(JsonReader reader) throws IOException {
+
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            return true;
+        }
+        if (token != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+        }
+        return false;
+    }
+
+    private boolean nextObject(JsonReader reader, boolean array) throws IOException {
+
+        if (!array) {
+            return reader.peek() == JsonToken.BEGIN_OBJECT;
+        }
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                return true;
             }
-            response.setPid((eventResponse.getMessagesMap().get("pid")));
+            reader.skipValue();
         }
+        return false;
+    }
 
-        return response;
+    private void endObjects(JsonReader reader, boolean array) throws IOException {
+        if (array) {
+            reader.endArray();
+        }
+    }
+
+    /*
+     * Returns the value of a primitive. Nested arrays and objects are skipped.
+     */
+
+    private String readString(JsonReader reader) throws IOException {
+
+        switch (reader.peek()) {
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return null;
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            default:
+                reader.skipValue();
+                return null;
+        }
     }
 }
@@ -0,0 +1,106 @@
+package org.openhab.binding.heos.resources;
+
+/**
+ * The {@link HeosMediaInfo} contains the now playing media of a player
+ * or group as received by the {@code get_now_playing_media} command.
+ * It is filled by the {@link HeosJsonParser} and not changed afterwards.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosMediaInfo {
+
+    private String type;
+    private String song;
+    private String album;
+    private String artist;
+    private String image_url;
+    private String album_id;
+    private String mid;
+    private String qid;
+    private String sid;
+    private String station;
+
+    public String getType() {
+        return type;
+    }
+
+    public String getSong() {
+        return song;
+    }
+
+    public String getAlbum() {
+        return album;
+    }
+
+    public String getArtist() {
+        return artist;
+    }
+
+    public String getImage_url() {
+        return image_url;
+    }
+
+    public String getAlbum_id() {
+        return album_id;
+    }
+
+    public String getMid() {
+        return mid;
+    }
+
+    public String getQid() {
+        return qid;
+    }
+
+    public String getSid() {
+        return sid;
+    }
+
+    public String getStation() {
+        return station;
+    }
+
+    void setValue(String key, String value) {
+
+        switch (key) {
+            case "type":
+                type = value;
+                break;
+            case "song":
+                song = value;
+                break;
+            case "album":
+                album = value;
+                break;
+            case "artist":
+                artist = value;
+                break;
+            case "image_url":
+                image_url = value;
+                break;
+            case "album_id":
+                album_id = value;
+                break;
+            case "mid":
+                mid = value;
+                break;
+            case "qid":
+                qid = value;
+                break;
+            case "sid":
+                sid = value;
+                break;
+            case "station":
+                station = value;
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return artist + " - " + song;
+    }
+
+}
@@ -1,13 +1,7 @@
 package org.openhab.binding.heos.resources;
 
-import java.util.HashMap;
-
 public class HeosMediaObject {
 
-    private final String[] supportedMediaItems = { "song", "album", "artist", "image_url", "qid", "mid", "album_id" };
-
-    private HashMap<String, String> mediaInfo;
-
     private String song;
     private String album;
     private String artist;
@@ -16,67 +10,24 @@ public class HeosMediaObject {
     private String mid;
     private String album_id;
 
-    public HeosMediaObject() {
-
-        initObject();
-
-    }
-
-    public void updateMediaInfo(HashMap<String, String> values) {
-
-        this.mediaInfo = values;
-
-        for (String key : this.mediaInfo.keySet()) {
-
-            switch (key) {
-
-                case "song":
-                    this.song = this.mediaInfo.get(key);
-                    break;
-                case "album":
-                    this.album = this.mediaInfo.get(key);
-                    break;
-                case "artist":
-                    this.artist = this.mediaInfo.get(key);
-                    break;
-                case "image_url":
-                    this.image_url = this.mediaInfo.get(key);
-                    break;
-                case "qid":
-                    this.qid = this.mediaInfo.get(key);
-                    break;
-                case "mid":
-                    this.mid = this.mediaInfo.get(key);
-                    break;
-                case "album_id":
-                    this.album_id = this.mediaInfo.get(key);
-                    break;
-
-            }
-        }
+    public void updateMediaInfo(HeosMediaInfo media) {
 
-    }
-
-    private void initObject() {
-        mediaInfo = new HashMap<String, String>(7);
-
-        for (String key : supportedMediaItems) {
-            mediaInfo.put(key, null);
-        }
+        this.song = media.getSong();
+        this.album = media.getAlbum();
+        this.artist = media.getArtist();
+        this.image_url = media.getImage_url();
+        this.qid = media.getQid();
+        this.mid = media.getMid();
+        this.album_id = media.getAlbum_id();
 
     }
 
-    public HashMap<String, String> getMediaInfo() {
-        return mediaInfo;
-    }
-
     public String getSong() {
         return song;
     }
 
     public void setSong(String song) {
         this.song = song;
-        mediaInfo.put("song", song);
     }
 
     public String getAlbum() {
@@ -85,7 +36,6 @@ public class HeosMediaObject {
 
     public void setAlbum(String album) {
         this.album = album;
-        mediaInfo.put("album", album);
     }
 
     public String getArtist() {
@@ -94,7 +44,6 @@ public class HeosMediaObject {
 
     public void setArtist(String artist) {
         this.artist = artist;
-        mediaInfo.put("artis", artist);
     }
 
     public String getImage_url() {
@@ -103,7 +52,6 @@ public class HeosMediaObject {
 
     public void setImage_url(String image_url) {
         this.image_url = image_url;
-        mediaInfo.put("image_url", image_url);
     }
 
     public String getQid() {
@@ -112,7 +60,6 @@ public class HeosMediaObject {
 
     public void setQid(String qid) {
         this.qid = qid;
-        mediaInfo.put("qid", qid);
     }
 
     public String getMid() {
@@ -121,7 +68,6 @@ public class HeosMediaObject {
 
     public void setMid(String mid) {
         this.mid = mid;
-        mediaInfo.put("mid", mid);
     }
 
     public String getAlbum_id() {
@@ -130,11 +76,6 @@ public class HeosMediaObject {
 
     public void setAlbum_id(String album_id) {
         this.album_id = album_id;
-        mediaInfo.put("album_id", album_id);
-    }
-
-    public String[] getSupportedMediaItems() {
-        return supportedMediaItems;
     }
 
 }
@@ -0,0 +1,150 @@
+package org.openhab.binding.heos.resources;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The {@link HeosMessage} gives access to the {@code message} field of a
+ * HEOS response, e.g. {@code pid=12345&level=30&mute=off}.
+ *
+ * The message is not split into a map. A value is looked up by walking the
+ * raw message with a cursor, so nothing is allocated till the requested
+ * value is found. Only the found value is copied and, if it contains
+ * escaped characters ({@code %26}, {@code %3D}, {@code %25}), URL decoded.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosMessage {
+
+    private final static String COMMAND_UNDER_PROCESS = "command under process";
+
+    private final String message;
+    private final boolean underProcess;
+
+    /**
+     *
+     * @param message the raw message or {@code null} if the response has no message
+     */
+
+    public HeosMessage(String message) {
+
+        this.message = message;
+        this.underProcess = message != null && message.startsWith(COMMAND_UNDER_PROCESS);
+    }
+
+    /**
+     * Returns the URL decoded value of the key.
+     *
+     * @param key the key of the value, e.g. {@code pid}
+     * @return the value or {@code null} if the message does not contain the key
+     */
+
+    public String get(String key) {
+
+        if (message == null || underProcess) {
+            return null;
+        }
+
+        int length = message.length();
+        int keyLength = key.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = message.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int separator = start + keyLength;
+            if (separator < end && message.charAt(separator) == '='
+                    && message.regionMatches(start, key, 0, keyLength)) {
+                return decode(message, separator + 1, end);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    /**
+     *
+     * @return true if the HEOS system answered with "command under process"
+     */
+
+    public boolean isCommandUnderProcess() {
+        return underProcess;
+    }
+
+    /**
+     *
+     * @return true if the response contains a non empty message
+     */
+
+    public boolean isPresent() {
+        return message != null && !message.isEmpty();
+    }
+
+    /**
+     *
+     * @return the raw message as received from the HEOS system
+     */
+
+    public String getRaw() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(message);
+    }
+
+    /*
+     * Decodes %XX escape sequences as UTF-8. A '+' is kept, because the HEOS
+     * system only escapes '&', '=' and '%'.
+     */
+
+    private static String decode(String message, int start, int end) {
+
+        int escape = message.indexOf('%', start);
+        if (escape < 0 || escape >= end) {
+            return message.substring(start, end);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(end - start);
+        StringBuilder builder = new StringBuilder(end - start);
+        int i = start;
+        while (i < end) {
+            char c = message.charAt(i);
+            if (c == '%' && hexValue(message, i + 1, end) >= 0) {
+                while (i < end && message.charAt(i) == '%' && hexValue(message, i + 1, end) >= 0) {
+                    bytes.write(hexValue(message, i + 1, end));
+                    i += 3;
+                }
+                builder.append(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+                bytes.reset();
+            } else {
+                builder.append(c);
+                i++;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static int hexValue(String message, int position, int end) {
+
+        if (position + 2 > end) {
+            return -1;
+        }
+        int high = Character.digit(message.charAt(position), 16);
+        int low = Character.digit(message.charAt(position + 1), 16);
+        if (high < 0 || low < 0) {
+            return -1;
+        }
+        return (high << 4) + low;
+    }
+
+}
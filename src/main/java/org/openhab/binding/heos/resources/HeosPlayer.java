@@ -1,15 +1,7 @@
 package org.openhab.binding.heos.resources;
 
-import java.util.HashMap;
-
 public class HeosPlayer extends HeosMediaObject {
 
-    private final String[] supportedPlayerInfo = { "name", "pid", "gip", "ip", "model", "version", "lineout, network" };
-    private final String[] supportedPlayerStates = { "state", "level", "mute", "duration", "cur_pos" };
-
-    private HashMap<String, String> playerInfo;
-    private HashMap<String, String> playerState;
-
     // Player Infos Variables
     private String pid;
     private String name;
@@ -29,95 +21,28 @@ public class HeosPlayer extends HeosMediaObject {
 
     public HeosPlayer() {
         super();
-        initPlayer();
-
-    }
-
-    public void updatePlayerInfo(HashMap<String, String> values) {
-
-        playerInfo = values;
-        for (String key : values.keySet()) {
-            if (key.equals("name")) {
-                name = values.get(key);
-            }
-            if (key.equals("pid")) {
-                pid = values.get(key);
-            }
-            if (key.equals("ip")) {
-                ip = values.get(key);
-            }
-            if (key.equals("model")) {
-                model = values.get(key);
-            }
-            if (key.equals("version")) {
-                version = values.get(key);
-            }
-            if (key.equals("lineout")) {
-                lineout = values.get(key);
-            }
-            if (key.equals("network")) {
-                network = values.get(key);
-            }
-            if (key.equals("gid")) {
-                gid = values.get(key);
-            }
-        }
 
     }
 
-    public void updatePlayerState(HashMap<String, String> values) {
-
-        playerState = values;
-        for (String key : values.keySet()) {
-            if (key.equals("state")) {
-                state = values.get(key);
-            }
-            if (key.equals("level")) {
-                level = values.get(key);
-            }
-            if (key.equals("mute")) {
-                mute = values.get(key);
-            }
-            if (key.equals("duration")) {
-                duration = values.get(key);
-            }
-            if (key.equals("cur_pos")) {
-                cur_pos = values.get(key);
-            }
+    public void updatePlayerInfo(HeosPlayerInfo info) {
 
-        }
+        name = info.getName();
+        pid = info.getPid();
+        ip = info.getIp();
+        model = info.getModel();
+        version = info.getVersion();
+        lineout = info.getLineout();
+        network = info.getNetwork();
+        gid = info.getGid();
 
     }
 
-    private void initPlayer() {
-
-        playerInfo = new HashMap<>(8);
-        playerState = new HashMap<>(5);
-
-        for (String key : supportedPlayerInfo) {
-            playerInfo.put(key, null);
-        }
-
-        for (String key : supportedPlayerStates) {
-            playerState.put(key, null);
-        }
-
-        updatePlayerInfo(playerInfo);
-        updatePlayerState(playerState);
-
-    }
-
-    public HashMap<String, String> getPlayerInfo() {
-        return playerInfo;
-    }
-
     public String getPid() {
         return pid;
     }
 
     public void setPid(String pid) {
         this.pid = pid;
-        playerInfo.put("pid", pid);
     }
 
     public String getGid() {
@@ -126,7 +51,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setGid(String gid) {
         this.gid = gid;
-        playerInfo.put("gid", gid);
     }
 
     public String getName() {
@@ -135,7 +59,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setName(String name) {
         this.name = name;
-        playerInfo.put("name", name);
     }
 
     public String getModel() {
@@ -144,7 +67,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setModel(String model) {
         this.model = model;
-        playerInfo.put("model", model);
     }
 
     public String getIp() {
@@ -153,7 +75,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setIp(String ip) {
         this.ip = ip;
-        playerInfo.put("ip", ip);
     }
 
     public String getVersion() {
@@ -162,7 +83,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setVersion(String version) {
         this.version = version;
-        playerInfo.put("version", version);
     }
 
     public String getNetwork() {
@@ -171,7 +91,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setNetwork(String network) {
         this.network = network;
-        playerInfo.put("network", network);
     }
 
     public String getLineout() {
@@ -180,11 +99,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setLineout(String lineout) {
         this.lineout = lineout;
-        playerInfo.put("lineout", lineout);
-    }
-
-    public String[] getSupportedPlayerInfo() {
-        return supportedPlayerInfo;
     }
 
     // Player States
@@ -195,7 +109,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setState(String state) {
         this.state = state;
-        playerState.put("state", state);
     }
 
     public String getLevel() {
@@ -204,7 +117,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setLevel(String level) {
         this.level = level;
-        playerState.put("level", level);
     }
 
     public String getMute() {
@@ -213,7 +125,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setMute(String mute) {
         this.mute = mute;
-        playerState.put("mute", mute);
     }
 
     public String getDuration() {
@@ -222,7 +133,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setDuration(String duration) {
         this.duration = duration;
-        playerState.put("duration", duration);
     }
 
     public String getCur_pos() {
@@ -231,15 +141,6 @@ public class HeosPlayer extends HeosMediaObject {
 
     public void setCur_pos(String cur_pos) {
         this.cur_pos = cur_pos;
-        playerState.put("cur_pos", cur_pos);
-    }
-
-    public String[] getSupportedPlayerStates() {
-        return supportedPlayerStates;
-    }
-
-    public HashMap<String, String> getPlayerState() {
-        return playerState;
     }
 
 }
@@ -0,0 +1,91 @@
+package org.openhab.binding.heos.resources;
+
+/**
+ * The {@link HeosPlayerInfo} contains the information of a single player
+ * as received by the {@code get_players} and {@code get_player_info}
+ * commands. It is filled by the {@link HeosJsonParser} and not changed
+ * afterwards.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosPlayerInfo {
+
+    private String name;
+    private String pid;
+    private String gid;
+    private String model;
+    private String version;
+    private String ip;
+    private String network;
+    private String lineout;
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPid() {
+        return pid;
+    }
+
+    public String getGid() {
+        return gid;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public String getNetwork() {
+        return network;
+    }
+
+    public String getLineout() {
+        return lineout;
+    }
+
+    void setValue(String key, String value) {
+
+        switch (key) {
+            case "name":
+                name = value;
+                break;
+            case "pid":
+                pid = value;
+                break;
+            case "gid":
+                gid = value;
+                break;
+            case "model":
+                model = value;
+                break;
+            case "version":
+                version = value;
+                break;
+            case "ip":
+                ip = value;
+                break;
+            case "network":
+                network = value;
+                break;
+            case "lineout":
+                lineout = value;
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + pid + ")";
+    }
+
+}
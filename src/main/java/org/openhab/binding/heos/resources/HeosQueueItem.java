@@ -0,0 +1,82 @@
+package org.openhab.binding.heos.resources;
+
+/**
+ * The {@link HeosQueueItem} is a single entry of the play queue of a player
+ * as received by the {@code get_queue} command. It is filled by the
+ * {@link HeosJsonParser} and not changed afterwards.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosQueueItem {
+
+    private String song;
+    private String album;
+    private String artist;
+    private String image_url;
+    private String album_id;
+    private String mid;
+    private String qid;
+
+    public String getSong() {
+        return song;
+    }
+
+    public String getAlbum() {
+        return album;
+    }
+
+    public String getArtist() {
+        return artist;
+    }
+
+    public String getImage_url() {
+        return image_url;
+    }
+
+    public String getAlbum_id() {
+        return album_id;
+    }
+
+    public String getMid() {
+        return mid;
+    }
+
+    public String getQid() {
+        return qid;
+    }
+
+    void setValue(String key, String value) {
+
+        switch (key) {
+            case "song":
+                song = value;
+                break;
+            case "album":
+                album = value;
+                break;
+            case "artist":
+                artist = value;
+                break;
+            case "image_url":
+                image_url = value;
+                break;
+            case "album_id":
+                album_id = value;
+                break;
+            case "mid":
+                mid = value;
+                break;
+            case "qid":
+                qid = value;
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return qid + ": " + artist + " - " + song;
+    }
+
+}
@@ -0,0 +1,251 @@
+package org.openhab.binding.heos.resources;
+
+import static org.openhab.binding.heos.resources.HeosConstants.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * A {@link HeosRequest} represents a command which was send to the HEOS
+ * system and which waits for its response.
+ *
+ * The request is identified by the command name (e.g. {@code player/get_volume})
+ * and the {@code pid} or {@code gid} of the command. Both are echoed by the
+ * HEOS system within the {@code heos.command} field and the {@code heos.message}
+ * field of the response and are used to assign a response to the request.
+ *
+ * If the HEOS system answers with "command under process" the request is
+ * deferred. It stays pending till the final result is received.
+ *
+ * Every request has a priority which decides the order in which queued
+ * requests are send. Commands a user waits for (play, volume, mute) and the
+ * heart beat are send first, polls of states and discovery commands last.
+ *
+ * Commands which set an absolute value (e.g. the volume) can be coalesced.
+ * A queued request is replaced by a later request with the same command and
+ * the same pid or gid, because only the latest value is of interest.
+ * A request generated by the binding itself, e.g. a step of a volume fade,
+ * never replaces a request of the user.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosRequest extends CompletableFuture<HeosResponse> {
+
+    public final static int PRIORITY_INTERACTIVE = 0;
+    public final static int PRIORITY_DEFAULT = 1;
+    public final static int PRIORITY_POLL = 2;
+    public final static int PRIORITIES = 3;
+
+    private final static String PREFIX = "heos://";
+
+    private final static List<String> INTERACTIVE_COMMANDS = Arrays.asList("system/heart_beat",
+            "player/set_play_state", "player/set_volume", "player/volume_up", "player/volume_down",
+            "player/set_mute", "player/toggle_mute", "player/play_next", "player/play_previous",
+            "player/play_queue", "group/set_volume", "group/volume_up", "group/volume_down", "group/set_mute",
+            "group/toggle_mute", "browse/play_stream", "browse/play_input", "browse/add_to_queue");
+
+    private final static List<String> COALESCABLE_COMMANDS = Arrays.asList("player/set_volume",
+            "group/set_volume");
+
+    private final String command;
+    private final String commandName;
+    private final String pid;
+    private final String gid;
+    private final int priority;
+    private final boolean generated;
+    private final long queuedAt = System.nanoTime();
+
+    private volatile boolean deferred = false;
+    private ScheduledFuture<?> timeout = null;
+
+    public HeosRequest(String command) {
+        this(command, false);
+    }
+
+    /**
+     *
+     * @param command the command to be send
+     * @param generated true if the command is generated by the binding and not requested by the user
+     */
+
+    public HeosRequest(String command, boolean generated) {
+
+        this.command = command;
+        this.generated = generated;
+        int start = command.startsWith(PREFIX) ? PREFIX.length() : 0;
+        int query = command.indexOf('?', start);
+        if (query < 0) {
+            this.commandName = command.substring(start);
+            this.pid = null;
+            this.gid = null;
+        } else {
+            this.commandName = command.substring(start, query);
+            this.pid = queryValue(command, query + 1, PID);
+            this.gid = queryValue(command, query + 1, GID);
+        }
+        this.priority = priorityOf(commandName);
+    }
+
+    private static int priorityOf(String commandName) {
+
+        if (INTERACTIVE_COMMANDS.contains(commandName)) {
+            return PRIORITY_INTERACTIVE;
+        }
+        if (commandName.startsWith("player/get_") || commandName.startsWith("group/get_")
+                || commandName.startsWith("browse/")) {
+            return PRIORITY_POLL;
+        }
+        return PRIORITY_DEFAULT;
+    }
+
+    /**
+     *
+     * @param command the command to be send
+     * @return the pid of the command, else the gid or {@code null} if the command has neither
+     */
+
+    public static String targetOf(String command) {
+
+        int query = command.indexOf('?');
+        if (query < 0) {
+            return null;
+        }
+        String pid = queryValue(command, query + 1, PID);
+        return pid != null ? pid : queryValue(command, query + 1, GID);
+    }
+
+    private static String queryValue(String command, int start, String key) {
+
+        int position = start;
+        while (position < command.length()) {
+            int end = command.indexOf('&', position);
+            if (end < 0) {
+                end = command.length();
+            }
+            if (command.startsWith(key, position) && command.startsWith("=", position + key.length())) {
+                return command.substring(position + key.length() + 1, end);
+            }
+            position = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the response belongs to the command of this request.
+     *
+     * The command and the pid and gid of the response have to match.
+     *
+     * @param response the response received from the HEOS system
+     * @return true if the response answers this request
+     */
+
+    public boolean matches(HeosResponse response) {
+
+        if (!commandName.equals(response.getEvent().getCommand())) {
+            return false;
+        }
+        HeosMessage messages = response.getEvent().getMessages();
+        return idMatches(pid, messages.get(PID)) && idMatches(gid, messages.get(GID));
+    }
+
+    private boolean idMatches(String requestId, String responseId) {
+        return requestId == null || responseId == null || requestId.equals(responseId);
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+
+    public String getPid() {
+        return pid;
+    }
+
+    public String getGid() {
+        return gid;
+    }
+
+    /**
+     * Checks if this request replaces the queued request because both set
+     * the same value of the same player or group.
+     *
+     * @param queued a request which is queued and not send yet
+     * @return true if the queued request can be dropped in favor of this request
+     */
+
+    public boolean replaces(HeosRequest queued) {
+
+        return COALESCABLE_COMMANDS.contains(commandName) && commandName.equals(queued.commandName)
+                && Objects.equals(pid, queued.pid) && Objects.equals(gid, queued.gid)
+                && (!generated || queued.generated);
+    }
+
+    public boolean isGenerated() {
+        return generated;
+    }
+
+    /**
+     *
+     * @return {@link #PRIORITY_INTERACTIVE}, {@link #PRIORITY_DEFAULT} or {@link #PRIORITY_POLL}
+     */
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     *
+     * @return the time in ms since the request was created
+     */
+
+    public long getQueuedTime() {
+        return (System.nanoTime() - queuedAt) / 1000000;
+    }
+
+    /**
+     *
+     * @return true if the HEOS system answered with "command under process"
+     *         and the final result is still outstanding
+     */
+
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    public void setDeferred(boolean deferred) {
+        this.deferred = deferred;
+    }
+
+    /**
+     * Sets the task which fails the request if no response is received
+     * in time. A formerly set task is cancelled.
+     *
+     * @param timeout the scheduled timeout task
+     */
+
+    public synchronized void setTimeout(ScheduledFuture<?> timeout) {
+        cancelTimeout();
+        this.timeout = timeout;
+    }
+
+    public synchronized void cancelTimeout() {
+        if (timeout != null) {
+            timeout.cancel(false);
+            timeout = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return command;
+    }
+
+}
@@ -1,16 +1,29 @@
 package org.openhab.binding.heos.resources;
 
+/**
+ * The {@link HeosResponse} is the decoded form of a single frame received
+ * from the HEOS system. A new response is created by the {@link HeosJsonParser}
+ * for every frame and is not changed afterwards, so it can be handed to other
+ * threads without synchronization.
+ *
+ * @author Johannes Einig
+ *
+ */
+
 public class HeosResponse {
 
-    private HeosResponseEvent event;
-    private HeosResponsePayload payload;
-    private String pid = "0";
-    private String rawResponseMessage = "";
+    private final HeosResponseEvent event;
+    private final HeosResponsePayload payload;
+    private final String pid;
+    private final String rawResponseMessage;
 
-    public HeosResponse() {
+    public HeosResponse(HeosResponseEvent event, HeosResponsePayload payload, String pid,
+            String rawResponseMessage) {
 
-        this.event = new HeosResponseEvent();
-        this.payload = new HeosResponsePayload();
+        this.event = event;
+        this.payload = payload;
+        this.pid = pid;
+        this.rawResponseMessage = rawResponseMessage;
 
     }
 
@@ -35,14 +48,6 @@ public class HeosResponse {
         return payload;
     }
 
-    public void setEvent(HeosResponseEvent event) {
-        this.event = event;
-    }
-
-    public void setPayload(HeosResponsePayload payload) {
-        this.payload = payload;
-    }
-
     /**
      *
      * @return the Player ID from which the response was received
@@ -52,10 +57,6 @@ public class HeosResponse {
         return pid;
     }
 
-    public void setPid(String pid) {
-        this.pid = pid;
-    }
-
     /**
      *
      * @return the undecoded message received from HEOS
@@ -65,8 +66,4 @@ public class HeosResponse {
         return rawResponseMessage;
     }
 
-    public void setRawResponseMessage(String rawResponseMessage) {
-        this.rawResponseMessage = rawResponseMessage;
-    }
-
 }
@@ -1,43 +1,59 @@
 package org.openhab.binding.heos.resources;
 
-import java.util.HashMap;
+import static org.openhab.binding.heos.resources.HeosConstants.FAIL;
 
 /**
- * This class
+ * The {@link HeosResponseEvent} contains the {@code heos} section of a
+ * response. The values are set once by the {@link HeosJsonParser} and
+ * are not changed afterwards.
  *
  * @author Johannes Einig
  *
  */
 
 public class HeosResponseEvent {
-    // RAW Values filled by Gson not decoded more or less for information
-    private String command = null;
-    private String result = null;
-    private String message = null;
+    // RAW Values not decoded more or less for information
+    private final String command;
+    private final String result;
+    private final HeosMessage message;
 
-    // Values evaluated from Gson filled Values
-    private String commandType = null;
-    private String eventType = null;
-    private HashMap<String, String> messagesMap = null;
+    // Values evaluated from the raw values
+    private final String commandType;
+    private final String eventType;
 
     // Error values
-    private String errorCode = null;
-    private String errorMessage = null;
+    private final String errorCode;
+    private final String errorMessage;
+
+    public HeosResponseEvent(String command, String result, HeosMessage message) {
+
+        this.command = command;
+        this.result = result;
+        this.message = message;
+
+        int stop = command == null ? -1 : command.indexOf("/");
+        if (stop > 0) {
+            this.eventType = command.substring(0, stop);
+            this.commandType = command.substring(stop + 1);
+        } else {
+            this.eventType = "Error";
+            this.commandType = command;
+        }
+
+        if (FAIL.equals(result)) {
+            this.errorCode = message.get("eid");
+            this.errorMessage = message.get("text");
+        } else {
+            this.errorCode = null;
+            this.errorMessage = null;
+        }
+    }
 
     @Override
     public String toString() {
         return commandType;
     }
 
-    public void getInfos() {
-        System.out.println("\n\nEvent Type: " + eventType + "\nCommand: " + commandType);
-        if (message != null) {
-            for (String key : messagesMap.keySet()) {
-                System.out.println(key + ": " + messagesMap.get(key));
-            }
-        }
-    }
-
     /**
      * Returns the raw message received by the
      * HEOS system.
@@ -64,7 +80,7 @@ public class HeosResponseEvent {
      * @return the un-decoded message from the HEOS message
      */
     public String getMessage() {
-        return message;
+        return message.getRaw();
     }
 
     /**
@@ -85,15 +101,14 @@ public class HeosResponseEvent {
     }
 
     /**
-     * This returns a HashMap which contains all encoded messages
-     * received by the HEOS JSON response.
-     * Each command can be called by its key
+     * This returns the message received by the HEOS JSON response.
+     * Each value can be called by its key
      *
-     * @return a map with all messages
+     * @return the message with all values
      */
 
-    public HashMap<String, String> getMessagesMap() {
-        return messagesMap;
+    public HeosMessage getMessages() {
+        return message;
     }
 
     /**
@@ -114,36 +129,4 @@ public class HeosResponseEvent {
         return errorMessage;
     }
 
-    public void setCommand(String command) {
-        this.command = command;
-    }
-
-    public void setResult(String result) {
-        this.result = result;
-    }
-
-    public void setMessage(String message) {
-        this.message = message;
-    }
-
-    public void setCommandType(String commandType) {
-        this.commandType = commandType;
-    }
-
-    public void setEventType(String eventType) {
-        this.eventType = eventType;
-    }
-
-    public void setMessagesMap(HashMap<String, String> messagesMap) {
-        this.messagesMap = messagesMap;
-    }
-
-    public void setErrorCode(String errorCode) {
-        this.errorCode = errorCode;
-    }
-
-    public void setErrorMessage(String errorMessage) {
-        this.errorMessage = errorMessage;
-    }
-
 }
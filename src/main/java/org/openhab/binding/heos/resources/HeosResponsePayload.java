@@ -1,72 +1,104 @@
 package org.openhab.binding.heos.resources;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * The {@link HeosResponsePayload} contains the {@code payload} section of a
+ * response. The {@link HeosJsonParser} decodes the payload by the command of
+ * the response directly into the typed value objects. Payloads of other
+ * commands are not decoded.
+ *
+ * The payload is not changed after the parser returned it. The lists must
+ * not be modified by the receiver of the response.
+ *
+ * @author Johannes Einig
+ *
+ */
+
 public class HeosResponsePayload {
 
-    private List<HashMap<String, String>> payload = new ArrayList<HashMap<String, String>>();
-    private List<List<HashMap<String, String>>> groupMembers = new ArrayList<List<HashMap<String, String>>>();
+    private final static HeosResponsePayload EMPTY = new HeosResponsePayload(null, null, null, null, null);
 
-    @Override
-    public String toString() {
-        return payloadToString();
-    }
+    private final List<HeosPlayerInfo> players;
+    private final List<HeosGroupInfo> groups;
+    private final HeosMediaInfo media;
+    private final List<HeosBrowseItem> browseItems;
+    private final List<HeosQueueItem> queueItems;
 
-    private String payloadToString() {
+    public HeosResponsePayload(List<HeosPlayerInfo> players, List<HeosGroupInfo> groups, HeosMediaInfo media,
+            List<HeosBrowseItem> browseItems, List<HeosQueueItem> queueItems) {
 
-        String returnString = "";
+        this.players = players == null ? Collections.<HeosPlayerInfo> emptyList() : players;
+        this.groups = groups == null ? Collections.<HeosGroupInfo> emptyList() : groups;
+        this.media = media;
+        this.browseItems = browseItems == null ? Collections.<HeosBrowseItem> emptyList() : browseItems;
+        this.queueItems = queueItems == null ? Collections.<HeosQueueItem> emptyList() : queueItems;
+    }
 
-        for (int i = 0; i < payload.size(); i++) {
+    /**
+     *
+     * @return a payload without any content
+     */
 
-            returnString = returnString + "\n\nPayload: " + (i + 1);
+    public static HeosResponsePayload empty() {
+        return EMPTY;
+    }
 
-            for (String key : payload.get(i).keySet()) {
-                returnString = returnString + "\n" + key + ":\t " + payload.get(i).get(key);
-            }
-        }
+    @Override
+    public String toString() {
+        return "players: " + players + ", groups: " + groups + ", media: " + media + ", items: " + browseItems
+                + ", queue: " + queueItems;
+    }
 
-        return returnString;
+    /**
+     * Received by the {@code get_players} and {@code get_player_info} command.
+     *
+     * @return the players or an empty list
+     */
 
+    public List<HeosPlayerInfo> getPlayers() {
+        return players;
     }
 
     /**
-     * This returns a list with HashMaps which contain the
-     * single pairs of information.
-     * Each HashMap represent a single JSON Array which was
-     * received by the HEOS response. For details for the
-     * expected response revere to the HEOS specification
+     * Received by the {@code get_groups} and {@code get_group_info} command.
      *
-     * @return a list with HashMaps for each JSON Array
+     * @return the groups with their members or an empty list
      */
 
-    public List<HashMap<String, String>> getPayloadList() {
-        return payload;
+    public List<HeosGroupInfo> getGroups() {
+        return groups;
     }
 
-    public void setPayload(List<HashMap<String, String>> payload) {
-        this.payload = payload;
+    /**
+     * Received by the {@code get_now_playing_media} command.
+     *
+     * @return the now playing media or {@code null}
+     */
+
+    public HeosMediaInfo getMedia() {
+        return media;
     }
 
     /**
-     * This returns a list with one element for each group.
-     * Each of this elements contain again a list with one
-     * element for a each player which is part of the group.
-     * This information is received by the get_groups command.
-     * The HashMap within the last list represents the player
-     * with its informations
+     * Received by the {@code browse} command.
      *
-     * @return nested Lists for the groups and their members
+     * @return the items of the browsed source or an empty list
      */
 
-    public List<List<HashMap<String, String>>> getPlayerList() {
-        return groupMembers;
+    public List<HeosBrowseItem> getBrowseItems() {
+        return browseItems;
     }
 
-    public void setPlayerList(List<List<HashMap<String, String>>> player) {
-        this.groupMembers = player;
+    /**
+     * Received by the {@code get_queue} command.
+     *
+     * @return the items of the queue or an empty list
+     */
 
+    public List<HeosQueueItem> getQueueItems() {
+        return queueItems;
     }
 
 }
@@ -0,0 +1,155 @@
+package org.openhab.binding.heos.resources;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link HeosScheduler} is the one scheduler of the binding. It is shared
+ * by all bridges, players and groups, so a re-initialization of a handler does
+ * not create new threads. The number of threads is bounded, idle threads
+ * are released after {@value #KEEP_ALIVE} seconds.
+ *
+ * The threads of the scheduler never block on the network. They run the
+ * timeouts, timers and the handling of asynchronous responses. Work which
+ * blocks on the network, e.g. opening a connection, a heart beat or probing
+ * a speaker, runs on the separate and also bounded I/O executor returned by
+ * {@link #getIoExecutor()}. So a HEOS system which does not answer can not
+ * stop the timeouts which end the blocking calls.
+ *
+ * The scheduler is created and shut down by the handler factory together
+ * with the bundle.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosScheduler extends ScheduledThreadPoolExecutor {
+
+    public final static int DEFAULT_THREADS = 8;
+    public final static int DEFAULT_IO_THREADS = 4;
+
+    private final static int KEEP_ALIVE = 60;
+    private final static String THREAD_NAME = "heos-";
+    private final static String IO_THREAD_NAME = "heos-io-";
+
+    private final static AtomicInteger threadCount = new AtomicInteger();
+
+    private final ThreadPoolExecutor ioExecutor;
+
+    public HeosScheduler() {
+        this(DEFAULT_THREADS, DEFAULT_IO_THREADS);
+    }
+
+    public HeosScheduler(int threads, int ioThreads) {
+
+        super(threads, new HeosThreadFactory(THREAD_NAME));
+        setKeepAliveTime(KEEP_ALIVE, TimeUnit.SECONDS);
+        allowCoreThreadTimeOut(true);
+        setRemoveOnCancelPolicy(true);
+
+        ioExecutor = new ThreadPoolExecutor(ioThreads, ioThreads, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new HeosThreadFactory(IO_THREAD_NAME));
+        ioExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     *
+     * @return the executor for work which blocks on the network
+     */
+
+    public ExecutorService getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     *
+     * @return the number of threads of the scheduler
+     */
+
+    public int getThreadCount() {
+        return getPoolSize();
+    }
+
+    /**
+     *
+     * @return the number of threads of the scheduler which currently run a task
+     */
+
+    public int getActiveThreadCount() {
+        return getActiveCount();
+    }
+
+    /**
+     *
+     * @return the number of tasks waiting to be executed, including scheduled tasks
+     */
+
+    public int getQueueSize() {
+        return getQueue().size();
+    }
+
+    /**
+     *
+     * @return the number of I/O threads which currently run a blocking task
+     */
+
+    public int getActiveIoThreadCount() {
+        return ioExecutor.getActiveCount();
+    }
+
+    /**
+     *
+     * @return the number of blocking tasks waiting for an I/O thread
+     */
+
+    public int getIoQueueSize() {
+        return ioExecutor.getQueue().size();
+    }
+
+    public long getCompletedIoTaskCount() {
+        return ioExecutor.getCompletedTaskCount();
+    }
+
+    @Override
+    public void shutdown() {
+        ioExecutor.shutdown();
+        super.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        ioExecutor.shutdownNow();
+        return super.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%d/%d threads (%d active, largest %d), %d queued, %d completed, I/O: %d active, %d queued, %d completed",
+                getThreadCount(), getCorePoolSize(), getActiveThreadCount(), getLargestPoolSize(), getQueueSize(),
+                getCompletedTaskCount(), getActiveIoThreadCount(), getIoQueueSize(), getCompletedIoTaskCount());
+    }
+
+    private static class HeosThreadFactory implements ThreadFactory {
+
+        private final String name;
+
+        private HeosThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -2,132 +2,638 @@ package org.openhab.binding.heos.resources;
 
 import static org.openhab.binding.heos.resources.HeosConstants.*;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.binding.heos.api.HeosEventController;
-import org.openhab.binding.heos.resources.Telnet.ReadException;
+import org.openhab.binding.heos.resources.NioTelnet.ReadException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HeosSendCommand} sends the commands to the HEOS system and
+ * assigns the received responses to the waiting commands.
+ *
+ * Several commands can be in flight on one connection. Every received frame
+ * is assigned to the oldest pending request with the same {@code heos.command}
+ * and the same echoed {@code pid}/{@code gid}. Events are added to the
+ * {@link HeosEventQueue}, so the input listener is not blocked by the handlers.
+ * Other frames which do not answer a pending request, e.g. a late response
+ * to a request which timed out, are discarded.
+ *
+ * If the HEOS system answers with "command under process" the request is
+ * deferred and completed by the final result whenever it arrives. Other
+ * commands are send and answered in the meantime.
+ *
+ * Only a few commands are in flight at the same time. Further commands are
+ * queued by their priority, so a user pressing pause does not wait behind a
+ * rescan of all players. A queued command which waits longer than
+ * {@value #MAX_QUEUE_WAIT} ms is send next regardless of its priority.
+ *
+ * A queued command which sets an absolute value, e.g. the volume while a
+ * slider is moved, is replaced by a later command for the same player or
+ * group. Only the latest value is send and both callers get its response.
+ *
+ * @author Johannes Einig
+ *
+ */
 
 public class HeosSendCommand {
 
-    private Telnet client;
+    private final int RESPONSE_TIMEOUT = 3000;
+    private final int COMMAND_UNDER_PROCESS_TIMEOUT = 15000;
+
+    /*
+     * A blocking caller does not rely on the timeout task alone, because the
+     * task may not run if all threads of the scheduler are blocked.
+     */
+    private final int AWAIT_TIMEOUT = RESPONSE_TIMEOUT + COMMAND_UNDER_PROCESS_TIMEOUT;
+    private final static int MAX_IN_FLIGHT = 4;
+    private final static int MAX_QUEUE_WAIT = 2000;
+
+    private NioTelnet client;
     private HeosJsonParser parser;
-    private HeosResponse response;
     private HeosEventController eventController;
+    private HeosEventQueue eventQueue;
+    private ScheduledExecutorService scheduler;
 
-    private String command = "";
+    private final LinkedList<HeosRequest> pendingRequests = new LinkedList<HeosRequest>();
+    private final Object writeLock = new Object();
+    private final AtomicLong sentCommands = new AtomicLong();
 
-    public HeosSendCommand(Telnet client, HeosJsonParser parser, HeosResponse response,
-            HeosEventController eventController) {
+    private final ArrayList<LinkedList<HeosRequest>> queues = new ArrayList<LinkedList<HeosRequest>>(
+            HeosRequest.PRIORITIES);
+    private final long[] queueWaitTime = new long[HeosRequest.PRIORITIES];
+    private final long[] dequeuedRequests = new long[HeosRequest.PRIORITIES];
+    private long coalescedRequests = 0;
+
+    /*
+     * Sends the queued requests on a thread of the scheduler, so the input
+     * listener of the connection never writes to the connection.
+     */
+    private Runnable sendQueuedRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            sendQueuedRequests();
+        }
+    };
+
+    private PropertyChangeListener frameListener = new PropertyChangeListener() {
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            handleFrame((String) evt.getNewValue());
+        }
+    };
+
+    private Logger logger = LoggerFactory.getLogger(HeosSendCommand.class);
+
+    public HeosSendCommand(NioTelnet client, HeosJsonParser parser, HeosEventController eventController,
+            HeosEventQueue eventQueue, ScheduledExecutorService scheduler) {
 
-        this.client = client;
         this.parser = parser;
-        this.response = response;
         this.eventController = eventController;
+        this.eventQueue = eventQueue;
+        this.scheduler = scheduler;
+        for (int i = 0; i < HeosRequest.PRIORITIES; i++) {
+            queues.add(new LinkedList<HeosRequest>());
+        }
+        if (client != null) {
+            setTelnetClient(client);
+        }
     }
 
-    public synchronized boolean send(String command) throws ReadException, IOException {
+    /**
+     * Sends the command and waits for the response. Other threads can send
+     * commands in the meantime.
+     *
+     * If the HEOS system answers with a failure the command is send a second time.
+     *
+     * @param command the command to be send
+     * @return the response or {@code null} if the client is not connected
+     * @throws ReadException if no response was received in time
+     * @throws IOException
+     */
+
+    public HeosResponse send(String command) throws ReadException, IOException {
         if (!isConnected()) {
-            return false;
+            return null;
         }
 
-        int sendTryCounter = 0;
-        this.command = command;
+        HeosResponse response = await(submit(command));
+        if (response != null && response.getEvent().getResult().equals(FAIL)) {
+            response = await(submit(command));
+        }
+        return response;
 
-        if (executeSendCommand()) {
-            while (sendTryCounter < 1) {
-                if (response.getEvent().getResult().equals(FAIL)) {
-                    executeSendCommand();
-                    ++sendTryCounter;
-                } else if (response.getEvent().getMessagesMap().get(COM_UNDER_PROCESS).equals(TRUE)) {
+    }
 
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                    ArrayList<String> readResultList = client.readLine(15000);
+    /**
+     * Sends the command without waiting for the response. The response is
+     * handled by the threads of the scheduler and not by the input listener
+     * of the connection.
+     *
+     * If the HEOS system answers with a failure the command is send a second time.
+     *
+     * @param command the command to be send
+     * @return a future completed with the response, with {@code null} if the
+     *         client is not connected or exceptionally with a {@link ReadException}
+     *         if no response was received in time
+     */
 
-                    for (int i = 0; i < readResultList.size(); i++) {
-                        parser.parseResult(readResultList.get(i));
-                        eventController.handleEvent(0); // Important don't remove it. Costs you some live time... ;)
-                    }
+    public CompletableFuture<HeosResponse> sendAsync(final String command) {
+        return sendAsync(command, false);
+    }
 
-                } else {
-                    return true;
-                }
-            }
-            return true;
-        } else {
+    /**
+     * Sends the command without waiting for the response, see {@link #sendAsync(String)}.
+     *
+     * @param command the command to be send
+     * @param generated true if the command is generated by the binding, e.g. a step of a
+     *            volume fade. Such a command never replaces a queued command of the user.
+     * @return a future completed with the response
+     */
 
-            return false;
+    public CompletableFuture<HeosResponse> sendAsync(final String command, final boolean generated) {
+        if (!isConnected()) {
+            return CompletableFuture.completedFuture(null);
         }
 
+        return handleAsync(submit(command, generated)).thenCompose(response -> {
+            if (response != null && response.getEvent().getResult().equals(FAIL)) {
+                return handleAsync(submit(command, generated));
+            }
+            return CompletableFuture.completedFuture(response);
+        });
     }
 
     /**
      * This method shall only be used if no response from network
-     * is expected. Else the read buffer is not cleared
+     * is expected.
      *
      * @param command
      * @return true if send was successful
      */
 
     public boolean sendWithoutResponse(String command) {
+        if (!isConnected()) {
+            return false;
+        }
         try {
             return client.send(command);
         } catch (IOException e) {
-
-            e.printStackTrace();
+            logger.error("Could not send command '{}': {}", command, e.getMessage());
             return false;
         }
 
     }
 
     /*
-     * It seems to be that sometime a command is still
-     * in the reading line without being read out. This
-     * shall be prevented with an Map which reads until no
-     * End of line is detected.
+     * Queues the request by its priority and sends the queued requests
+     * as long as the number of requests in flight allows it.
      */
 
-    private boolean executeSendCommand() throws ReadException, IOException {
-        // Debug
-        // System.out.println("Sending Command: " + command);
-        boolean sendSuccess = client.send(command);
-        if (sendSuccess) {
+    private HeosRequest submit(String command) {
+        return submit(command, false);
+    }
 
-            ArrayList<String> readResultList = client.readLine();
+    private HeosRequest submit(String command, boolean generated) {
 
-            for (int i = 0; i < readResultList.size(); i++) {
+        HeosRequest request = new HeosRequest(command, generated);
+        synchronized (pendingRequests) {
+            if (!replaceQueuedRequest(request)) {
+                queues.get(request.getPriority()).add(request);
+            }
+        }
+        sendQueuedRequests();
+        return request;
+
+    }
+
+    /*
+     * Replaces a queued request which the new request makes obsolete. The new
+     * request takes the place of the replaced one within the queue and the
+     * replaced request is completed with the response of the new request.
+     */
 
-                parser.parseResult(readResultList.get(i));
-                eventController.handleEvent(0);
+    private boolean replaceQueuedRequest(final HeosRequest request) {
+
+        ListIterator<HeosRequest> iterator = queues.get(request.getPriority()).listIterator();
+        while (iterator.hasNext()) {
+            final HeosRequest queued = iterator.next();
+            if (request.replaces(queued)) {
+                iterator.set(request);
+                coalescedRequests++;
+                request.whenComplete((response, error) -> {
+                    if (error != null) {
+                        queued.completeExceptionally(error);
+                    } else {
+                        queued.complete(response);
+                    }
+                });
+                logger.debug("HEOS command '{}' replaced by '{}'", queued, request);
+                return true;
             }
+        }
+        return false;
+    }
 
-            return true;
-        } else {
-            return false;
+    /*
+     * Has to be called without holding the lock of the pending requests.
+     * The requests are taken from the queues under the lock, but written
+     * after the lock is released, so a slow connection does not block the
+     * input listener and the matching of responses.
+     *
+     * The write lock is held from taking the requests until they are written,
+     * so the requests are written in the order they were registered as pending.
+     * The HEOS system answers in this order, which the matching of responses
+     * without ids, e.g. "command under process", relies on.
+     */
+
+    private void sendQueuedRequests() {
+
+        synchronized (writeLock) {
+            while (true) {
+                List<HeosRequest> requests;
+                synchronized (pendingRequests) {
+                    requests = takeQueuedRequests();
+                }
+                if (requests.isEmpty()) {
+                    return;
+                }
+                for (HeosRequest request : requests) {
+                    sendRequest(request);
+                }
+            }
+        }
+    }
+
+    /*
+     * Has to be called while holding the lock of the pending requests.
+     * Registers the requests which may be send as pending. Deferred requests
+     * do not count as in flight, because the HEOS system already answered
+     * them with "command under process".
+     */
+
+    private List<HeosRequest> takeQueuedRequests() {
+
+        List<HeosRequest> requests = new ArrayList<HeosRequest>();
+        int inFlight = 0;
+        for (HeosRequest request : pendingRequests) {
+            if (!request.isDeferred()) {
+                inFlight++;
+            }
+        }
+        while (inFlight < MAX_IN_FLIGHT) {
+            HeosRequest request = pollQueue();
+            if (request == null) {
+                break;
+            }
+            pendingRequests.add(request);
+            scheduleTimeout(request, RESPONSE_TIMEOUT);
+            requests.add(request);
+            inFlight++;
+        }
+        return requests;
+    }
+
+    /*
+     * Takes the request with the highest priority. A request which waits too
+     * long is taken first, so the commands of a low priority are not starved.
+     */
+
+    private HeosRequest pollQueue() {
+
+        LinkedList<HeosRequest> selected = null;
+        long oldest = -1;
+        for (LinkedList<HeosRequest> queue : queues) {
+            if (queue.isEmpty()) {
+                continue;
+            }
+            long queuedTime = queue.getFirst().getQueuedTime();
+            if (selected == null || (queuedTime > MAX_QUEUE_WAIT && queuedTime > oldest)) {
+                selected = queue;
+                oldest = queuedTime;
+            }
+        }
+        if (selected == null) {
+            return null;
+        }
+        HeosRequest request = selected.removeFirst();
+        queueWaitTime[request.getPriority()] += request.getQueuedTime();
+        dequeuedRequests[request.getPriority()]++;
+        return request;
+    }
+
+    /*
+     * Sends the command of a pending request. The request fails with a
+     * ReadException if it is not answered in time.
+     */
+
+    private void sendRequest(HeosRequest request) {
+
+        try {
+            if (client.send(request.getCommand())) {
+                sentCommands.incrementAndGet();
+            } else {
+                dropPendingRequest(request);
+                request.complete(null);
+            }
+        } catch (IOException e) {
+            dropPendingRequest(request);
+            request.completeExceptionally(e);
         }
 
     }
 
-    public boolean setTelnetClient(Telnet client) {
+    private void dropPendingRequest(HeosRequest request) {
+
+        request.cancelTimeout();
+        synchronized (pendingRequests) {
+            pendingRequests.remove(request);
+        }
+    }
+
+    private void scheduleTimeout(final HeosRequest request, int timeOut) {
+
+        request.setTimeout(scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                removePendingRequest(request);
+                if (request.completeExceptionally(new ReadException())) {
+                    logger.debug("HEOS command '{}' timed out", request);
+                }
+            }
+        }, timeOut, TimeUnit.MILLISECONDS));
+    }
+
+    private HeosResponse await(HeosRequest request) throws ReadException, IOException {
+
+        HeosResponse response;
+        try {
+            response = request.get(AWAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            removePendingRequest(request);
+            request.cancelTimeout();
+            Thread.currentThread().interrupt();
+            throw new ReadException();
+        } catch (TimeoutException e) {
+            removePendingRequest(request);
+            request.cancelTimeout();
+            request.completeExceptionally(new ReadException());
+            logger.debug("HEOS command '{}' timed out", request);
+            throw new ReadException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ReadException) {
+                throw (ReadException) e.getCause();
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+        if (response != null) {
+            eventController.handleEvent(response, 0);
+        }
+        return response;
+    }
+
+    /*
+     * The response is handed to the event controller by a thread of the scheduler,
+     * because handling the response can send further commands on this connection.
+     */
+
+    private CompletableFuture<HeosResponse> handleAsync(HeosRequest request) {
+
+        return request.thenApplyAsync(response -> {
+            if (response != null) {
+                eventController.handleEvent(response, 0);
+            }
+            return response;
+        }, scheduler);
+    }
+
+    /*
+     * Called by the input listener of the connection for every received frame.
+     * Must not write to the connection, see sendQueuedRunnable.
+     */
+
+    private void handleFrame(String frame) {
+
+        HeosResponse response;
+        try {
+            response = parser.parseResult(frame);
+        } catch (RuntimeException e) {
+            logger.warn("Could not parse HEOS response '{}': {}", frame, e.getMessage());
+            return;
+        }
+
+        boolean underProcess = response.getEvent().getMessages().isCommandUnderProcess();
+        HeosRequest request = takeMatchingRequest(response, underProcess);
+        if (request == null) {
+            if (EVENTTYPE_EVENT.equals(response.getEvent().getEventType())) {
+                eventQueue.offer(response);
+            } else {
+                // e.g. the late response to a request which timed out
+                logger.debug("Discarding HEOS response which matches no request: {}", frame);
+            }
+            return;
+        }
+        // The answered or deferred request frees a place for a queued request
+        scheduler.execute(sendQueuedRunnable);
+        if (underProcess) {
+            logger.debug("HEOS command '{}' under process", request);
+            scheduleTimeout(request, COMMAND_UNDER_PROCESS_TIMEOUT);
+            return;
+        }
+        request.cancelTimeout();
+        request.complete(response);
+
+    }
+
+    /*
+     * Takes the oldest request which matches the command and the ids of the response.
+     * A request answered by "command under process" stays within the pending requests
+     * and is marked as deferred. Such a response carries no ids, so it is matched to
+     * the oldest request of the command which is not deferred yet. This is correct
+     * because the pending requests are written in their order, see sendQueuedRequests().
+     */
+
+    private HeosRequest takeMatchingRequest(HeosResponse response, boolean underProcess) {
+
+        synchronized (pendingRequests) {
+            HeosRequest match = null;
+            Iterator<HeosRequest> iterator = pendingRequests.iterator();
+            while (iterator.hasNext()) {
+                HeosRequest request = iterator.next();
+                if (underProcess && request.isDeferred()) {
+                    continue;
+                }
+                if (request.matches(response)) {
+                    match = request;
+                    break;
+                }
+            }
+            if (match != null) {
+                if (underProcess) {
+                    match.setDeferred(true);
+                } else {
+                    pendingRequests.remove(match);
+                }
+            }
+            return match;
+        }
+    }
+
+    private void removePendingRequest(HeosRequest request) {
+
+        boolean wasPending;
+        synchronized (pendingRequests) {
+            wasPending = pendingRequests.remove(request);
+            if (!wasPending) {
+                queues.get(request.getPriority()).remove(request);
+            }
+        }
+        if (wasPending) {
+            sendQueuedRequests();
+        }
+    }
+
+    /**
+     * Fails all pending and queued requests with an {@link IOException}
+     *
+     * @param reason the message of the exception
+     */
+
+    void failPendingRequests(String reason) {
+        synchronized (pendingRequests) {
+            for (HeosRequest request : pendingRequests) {
+                request.cancelTimeout();
+                request.completeExceptionally(new IOException(reason));
+            }
+            pendingRequests.clear();
+            for (LinkedList<HeosRequest> queue : queues) {
+                for (HeosRequest request : queue) {
+                    request.completeExceptionally(new IOException(reason));
+                }
+                queue.clear();
+            }
+        }
+    }
+
+    /**
+     * Sets the connection used by this class and starts its input
+     * listener. Requests which are still pending on the former
+     * connection are failed.
+     *
+     * @param client the connected client
+     * @return true if the client was set
+     */
+
+    public boolean setTelnetClient(NioTelnet client) {
+        if (this.client != null) {
+            this.client.getReadResultListener().removePropertyChangeListener(frameListener);
+        }
+        failPendingRequests("HEOS connection replaced");
         this.client = client;
+        client.getReadResultListener().addPropertyChangeListener(frameListener);
+        client.startInputListener();
         return true;
     }
 
-    public Telnet getTelnetClient() {
+    public NioTelnet getTelnetClient() {
         return client;
     }
 
     public boolean isConnected() {
 
-        return client.isConnected();
+        return client != null && client.isConnected();
     }
 
     public boolean isConnectionAlive() {
         return client.isConnectionAlive();
     }
 
+    /**
+     *
+     * @return the number of commands which are queued or send and not answered yet
+     */
+
+    public int getPendingRequestCount() {
+        synchronized (pendingRequests) {
+            int pending = pendingRequests.size();
+            for (LinkedList<HeosRequest> queue : queues) {
+                pending += queue.size();
+            }
+            return pending;
+        }
+    }
+
+    /**
+     *
+     * @param priority the priority of the queue, e.g. {@link HeosRequest#PRIORITY_INTERACTIVE}
+     * @return the number of commands waiting within the queue
+     */
+
+    public int getQueueDepth(int priority) {
+        synchronized (pendingRequests) {
+            return queues.get(priority).size();
+        }
+    }
+
+    /**
+     *
+     * @param priority the priority of the queue, e.g. {@link HeosRequest#PRIORITY_INTERACTIVE}
+     * @return the summed up time in ms the send commands waited within the queue
+     */
+
+    public long getQueueWaitTime(int priority) {
+        synchronized (pendingRequests) {
+            return queueWaitTime[priority];
+        }
+    }
+
+    /**
+     *
+     * @param priority the priority of the queue, e.g. {@link HeosRequest#PRIORITY_INTERACTIVE}
+     * @return the number of commands which were taken from the queue
+     */
+
+    public long getDequeuedRequests(int priority) {
+        synchronized (pendingRequests) {
+            return dequeuedRequests[priority];
+        }
+    }
+
+    /**
+     *
+     * @return the number of queued commands which were replaced by a later command
+     */
+
+    public long getCoalescedRequests() {
+        synchronized (pendingRequests) {
+            return coalescedRequests;
+        }
+    }
+
+    /**
+     *
+     * @return the number of commands send on this connection since start
+     */
+
+    public long getSentCommands() {
+        return sentCommands.get();
+    }
+
 }
@@ -0,0 +1,54 @@
+package org.openhab.binding.heos.resources;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The {@link HeosStateSnapshot} contains the states of all players and
+ * groups fetched by the state bootstrap of the {@code HeosSystem}. The
+ * snapshot is handed over as a whole when all states are fetched.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosStateSnapshot {
+
+    private final Map<String, HeosPlayer> players;
+    private final Map<String, HeosGroup> groups;
+    private final long timestamp;
+
+    /**
+     *
+     * @param players the players with their pid as key
+     * @param groups the groups with their gid as key
+     */
+
+    public HeosStateSnapshot(Map<String, HeosPlayer> players, Map<String, HeosGroup> groups) {
+
+        this.players = Collections.unmodifiableMap(players);
+        this.groups = Collections.unmodifiableMap(groups);
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public HeosPlayer getPlayer(String pid) {
+        return players.get(pid);
+    }
+
+    public HeosGroup getGroup(String gid) {
+        return groups.get(gid);
+    }
+
+    public Map<String, HeosPlayer> getPlayers() {
+        return players;
+    }
+
+    public Map<String, HeosGroup> getGroups() {
+        return groups;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+}
@@ -0,0 +1,182 @@
+package org.openhab.binding.heos.resources;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link LineFramer} splits the byte stream received from the HEOS CLI
+ * into frames which are terminated by \r\n.
+ *
+ * Received bytes are written into one receive buffer. Only the bytes which
+ * arrived since the last call are scanned for the End of Line. A complete
+ * frame is handed out as a read only slice of the receive buffer, so no
+ * bytes are copied. The frame is only decoded to a String if the consumer
+ * calls {@link #decode(ByteBuffer)}.
+ *
+ * A frame is only valid till the next call of {@link #getReceiveBuffer()}
+ * because the buffer is compacted there.
+ *
+ * The buffer grows up to the maximum frame size. A frame which exceeds it
+ * is dropped up to its End of Line, so a peer which never sends \r\n can
+ * not exhaust the memory. The framer continues with the next frame.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class LineFramer {
+
+    public final static int DEFAULT_MAX_FRAME_SIZE = 1024 * 1024;
+
+    private final static byte CR = '\r';
+    private final static byte LF = '\n';
+
+    private final int maxFrameSize;
+
+    private ByteBuffer buffer;
+    private int frameStart = 0;
+    private int scanPosition = 0;
+    private boolean discarding = false;
+    private long droppedFrames = 0;
+
+    private Logger logger = LoggerFactory.getLogger(LineFramer.class);
+
+    public LineFramer(int initialCapacity) {
+        this(initialCapacity, DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    /**
+     *
+     * @param initialCapacity the initial size of the receive buffer in bytes
+     * @param maxFrameSize the maximum size of a frame in bytes, at least the initial capacity
+     */
+
+    public LineFramer(int initialCapacity, int maxFrameSize) {
+        this.maxFrameSize = Math.max(initialCapacity, maxFrameSize);
+        buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    /**
+     * Returns the buffer the next received bytes shall be written to.
+     * Bytes of already handed out frames are dropped and the remaining
+     * bytes of an incomplete frame are moved to the start of the buffer.
+     * If an incomplete frame fills the whole buffer the buffer is enlarged.
+     * If the buffer already has the maximum frame size the incomplete frame
+     * is dropped.
+     *
+     * @return the buffer in write mode with space for new bytes
+     */
+
+    public ByteBuffer getReceiveBuffer() {
+
+        if (frameStart > 0) {
+            int pending = buffer.position() - frameStart;
+            System.arraycopy(buffer.array(), frameStart, buffer.array(), 0, pending);
+            buffer.position(pending);
+            scanPosition -= frameStart;
+            frameStart = 0;
+        }
+        if (!buffer.hasRemaining()) {
+            if (buffer.capacity() >= maxFrameSize) {
+                dropIncompleteFrame();
+            } else {
+                ByteBuffer enlarged = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, maxFrameSize));
+                buffer.flip();
+                enlarged.put(buffer);
+                buffer = enlarged;
+            }
+        }
+        return buffer;
+    }
+
+    /*
+     * Drops the bytes of the frame received so far. The rest of the frame is
+     * dropped by nextFrame() when its End of Line arrives. A trailing \r is
+     * kept, because it may be the first byte of the End of Line.
+     */
+
+    private void dropIncompleteFrame() {
+
+        if (!discarding) {
+            droppedFrames++;
+            logger.warn("HEOS frame exceeds {} bytes and is dropped", maxFrameSize);
+        }
+        boolean trailingCR = buffer.get(buffer.position() - 1) == CR;
+        buffer.clear();
+        if (trailingCR) {
+            buffer.put(CR);
+        }
+        frameStart = 0;
+        scanPosition = 0;
+        discarding = true;
+    }
+
+    /**
+     * Returns the next complete frame without the terminating \r\n.
+     * Empty frames are skipped.
+     *
+     * @return a read only slice of the receive buffer or {@code null}
+     *         if no complete frame is available
+     */
+
+    public ByteBuffer nextFrame() {
+
+        byte[] data = buffer.array();
+        int limit = buffer.position();
+
+        for (int i = Math.max(scanPosition, frameStart + 1); i < limit; i++) {
+            if (data[i] == LF && data[i - 1] == CR) {
+                int start = frameStart;
+                int length = i - 1 - start;
+                frameStart = i + 1;
+                scanPosition = frameStart;
+                if (discarding) {
+                    // The end of a dropped frame
+                    discarding = false;
+                    continue;
+                }
+                if (length > 0) {
+                    ByteBuffer frame = ByteBuffer.wrap(data, start, length).slice();
+                    return frame.asReadOnlyBuffer();
+                }
+            }
+        }
+        scanPosition = limit;
+        return null;
+    }
+
+    /**
+     * Drops all received bytes
+     */
+
+    public void clear() {
+        buffer.clear();
+        frameStart = 0;
+        scanPosition = 0;
+        discarding = false;
+    }
+
+    /**
+     *
+     * @return the number of frames dropped because they exceeded the maximum frame size
+     */
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Decodes a frame to a String
+     *
+     * @param frame the frame as returned by {@link #nextFrame()}
+     * @return the UTF-8 decoded frame
+     */
+
+    public static String decode(ByteBuffer frame) {
+        return StandardCharsets.UTF_8.decode(frame.duplicate()).toString();
+    }
+
+}
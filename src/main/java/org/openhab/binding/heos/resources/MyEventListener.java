@@ -1,46 +1,104 @@
 package org.openhab.binding.heos.resources;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@link MyEventListener} dispatches the events of the HEOS system.
+ *
+ * Player and group listeners are registered by the pid or gid they are
+ * interested in. A state or media event is only handed to the listeners
+ * of its pid, so the dispatch costs do not grow with the number of things.
+ * Bridge wide events are handed to the bridge listeners.
+ *
+ * @author Johannes Einig
+ *
+ */
 
 public class MyEventListener {
 
-    protected ArrayList<HeosEventListener> listenerList = new ArrayList<HeosEventListener>();
+    protected ConcurrentHashMap<String, List<HeosEventListener>> listenerMap = new ConcurrentHashMap<>();
+    protected List<HeosEventListener> bridgeListenerList = new CopyOnWriteArrayList<HeosEventListener>();
+
+    /**
+     * Registers a listener for the state and media events of a player or group
+     *
+     * @param pid the pid of the player or the gid of the group
+     * @param listener the listener
+     */
+
+    public void addListener(String pid, HeosEventListener listener) {
+
+        List<HeosEventListener> listeners = listenerMap.get(pid);
+        if (listeners == null) {
+            List<HeosEventListener> newListeners = new CopyOnWriteArrayList<HeosEventListener>();
+            listeners = listenerMap.putIfAbsent(pid, newListeners);
+            if (listeners == null) {
+                listeners = newListeners;
+            }
+        }
+        listeners.add(listener);
+
+    }
+
+    public void removeListener(String pid, HeosEventListener listener) {
+
+        List<HeosEventListener> listeners = listenerMap.get(pid);
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Registers a listener for the bridge wide events like
+     * a lost connection or changed players and groups
+     *
+     * @param listener the listener
+     */
 
-    public void addListener(HeosEventListener listener) {
+    public void addBridgeListener(HeosEventListener listener) {
 
-        listenerList.add(listener);
+        bridgeListenerList.add(listener);
 
     }
 
-    public void removeListener(HeosEventListener listener) {
+    public void removeBridgeListener(HeosEventListener listener) {
 
-        listenerList.remove(listener);
+        bridgeListenerList.remove(listener);
     }
 
     public void fireStateEvent(String pid, String event, String command) {
 
-        for (int i = 0; i < listenerList.size(); i++) {
+        List<HeosEventListener> listeners = listenerMap.get(pid);
+        if (listeners == null) {
+            return;
+        }
+        for (HeosEventListener listener : listeners) {
 
-            listenerList.get(i).playerStateChangeEvent(pid, event, command);
+            listener.playerStateChangeEvent(pid, event, command);
 
         }
     }
 
-    public void fireMediaEvent(String pid, HashMap<String, String> info) {
+    public void fireMediaEvent(String pid, HeosMediaInfo info) {
 
-        for (int i = 0; i < listenerList.size(); i++) {
+        List<HeosEventListener> listeners = listenerMap.get(pid);
+        if (listeners == null) {
+            return;
+        }
+        for (HeosEventListener listener : listeners) {
 
-            listenerList.get(i).playerMediaChangeEvent(pid, info);
+            listener.playerMediaChangeEvent(pid, info);
 
         }
     }
 
     public void fireBridgeEvent(String event, String result, String command) {
 
-        for (int i = 0; i < listenerList.size(); i++) {
+        for (HeosEventListener listener : bridgeListenerList) {
 
-            listenerList.get(i).bridgeChangeEvent(event, result, command);
+            listener.bridgeChangeEvent(event, result, command);
 
         }
     }
@@ -0,0 +1,368 @@
+package org.openhab.binding.heos.resources;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link NioTelnet} is the connection to the HEOS CLI. It provides the
+ * same contract as the former commons-net based Telnet client but is build
+ * on a non blocking {@link SocketChannel} and a {@link Selector}.
+ *
+ * Waiting for a response blocks within the selector and therefore costs no
+ * CPU time. The received bytes are framed by the {@link LineFramer}.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class NioTelnet {
+
+    private final static int BUFFER_SIZE = 8192;
+
+    private final int READ_TIMEOUT = 3000;
+    private final int CONNECT_TIMEOUT = 5000;
+    private final int IS_ALIVE_TIMEOUT = 10000;
+
+    private String ip = "";
+    private int port = 0;
+
+    private InetAddress address;
+    private SocketChannel channel = null;
+    private Selector readSelector = null;
+    private Selector writeSelector = null;
+
+    private LineFramer framer = new LineFramer(BUFFER_SIZE);
+    private ArrayList<String> readResultList = new ArrayList<String>(5);
+
+    private MyStringPropertyChangeListener eolNotifyer = new MyStringPropertyChangeListener();
+
+    private Thread inputListener = null;
+    private volatile boolean listening = false;
+
+    private Logger logger = LoggerFactory.getLogger(NioTelnet.class);
+
+    /**
+     * Connects to a host with the specified IP address and port
+     *
+     * @param ip IP Address of the host
+     * @param port where to be connected
+     * @return True if connection was successful
+     * @throws SocketException
+     * @throws IOException
+     */
+
+    public boolean connect(String ip, int port) throws SocketException, IOException {
+
+        this.ip = ip;
+        this.port = port;
+        try {
+            address = InetAddress.getByName(ip);
+        } catch (UnknownHostException e) {
+            logger.error("Unknown HEOS host '{}'", ip);
+        }
+        return openConnection();
+
+    }
+
+    private boolean openConnection() throws SocketException, IOException {
+
+        channel = SocketChannel.open();
+        try {
+            channel.socket().connect(new InetSocketAddress(ip, port), CONNECT_TIMEOUT);
+        } catch (SocketTimeoutException e) {
+            channel.close();
+            throw new ConnectException("Connection timed out: connect");
+        }
+        channel.socket().setTcpNoDelay(true);
+        channel.configureBlocking(false);
+
+        readSelector = Selector.open();
+        channel.register(readSelector, SelectionKey.OP_READ);
+
+        framer.clear();
+        return channel.isConnected();
+
+    }
+
+    /**
+     * Appends \r\n to the command.
+     * For clear send use sendClear
+     *
+     * @param command The command to be send
+     * @return true after the command was send
+     * @throws IOException
+     */
+
+    public boolean send(String command) throws IOException {
+
+        return sendClear(command + "\r\n");
+
+    }
+
+    /**
+     * Send command without additional commands
+     *
+     * @param command The command to be send
+     * @return true after the command was send
+     * @throws IOException
+     */
+
+    public synchronized boolean sendClear(String command) throws IOException {
+
+        if (!isConnected()) {
+            return false;
+        }
+
+        ByteBuffer writeBuffer = ByteBuffer.wrap(command.getBytes(StandardCharsets.UTF_8));
+        while (writeBuffer.hasRemaining()) {
+            if (channel.write(writeBuffer) == 0) {
+                waitUntilWritable();
+            }
+        }
+        return true;
+
+    }
+
+    /*
+     * Only called if the socket send buffer is full. Blocks within a
+     * separate selector till the channel accepts data again.
+     */
+
+    private void waitUntilWritable() throws IOException {
+
+        if (writeSelector == null) {
+            writeSelector = Selector.open();
+            channel.register(writeSelector, SelectionKey.OP_WRITE);
+        }
+        if (writeSelector.select(READ_TIMEOUT) == 0) {
+            throw new IOException("Timeout while writing to " + ip);
+        }
+        writeSelector.selectedKeys().clear();
+    }
+
+    /**
+     * Read all commands till an End Of Line is detected
+     * I more than one line is read every line is an
+     * element in the returned {@code ArrayList<String>}
+     * Reading timed out after 3000 milliseconds. For an other
+     * timing @see readLine(int timeOut). *
+     *
+     * @return A list with all read commands
+     * @throws ReadException
+     * @throws IOException
+     */
+
+    public ArrayList<String> readLine() throws ReadException, IOException {
+        return readLine(READ_TIMEOUT);
+    }
+
+    /**
+     * Read all commands till an End Of Line is detected
+     * I more than one line is read every line is an
+     * element in the returned {@code ArrayList<String>}
+     * Reading time out is defined by parameter in
+     * milliseconds.
+     *
+     * @param timeOut the time in millis after reading times out
+     * @return A list with all read commands
+     * @throws ReadException
+     * @throws IOException
+     */
+
+    public ArrayList<String> readLine(int timeOut) throws ReadException, IOException {
+
+        readResultList.clear();
+
+        if (!isConnected()) {
+            readResultList.add(null);
+            return readResultList;
+        }
+
+        long deadline = System.currentTimeMillis() + timeOut;
+
+        while (readResultList.isEmpty()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new ReadException();
+            }
+            if (readSelector.select(remaining) > 0) {
+                readSelector.selectedKeys().clear();
+                if (fillBuffer() < 0) {
+                    throw new IOException("Connection closed by HEOS system at " + ip);
+                }
+                frameLines(readResultList);
+            }
+        }
+
+        return readResultList;
+
+    }
+
+    /*
+     * Reads the available bytes into the receive buffer of the framer.
+     */
+
+    private int fillBuffer() throws IOException {
+
+        int read = channel.read(framer.getReceiveBuffer());
+        if (read < 0) {
+            channel.close();
+        }
+        return read;
+    }
+
+    /*
+     * Decodes every complete frame and adds it to the result list.
+     */
+
+    private void frameLines(ArrayList<String> resultList) {
+
+        ByteBuffer frame = framer.nextFrame();
+        while (frame != null) {
+            resultList.add(LineFramer.decode(frame));
+            frame = framer.nextFrame();
+        }
+    }
+
+    /**
+     * Disconnect Telnet and close all Streams
+     *
+     * @throws IOException
+     */
+
+    public void disconnect() throws IOException {
+
+        stopInputListener();
+        if (writeSelector != null) {
+            writeSelector.close();
+            writeSelector = null;
+        }
+        if (readSelector != null) {
+            readSelector.close();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+
+    }
+
+    /**
+     * Input Listener which fires event if input is detected.
+     * The listener runs within its own thread which is blocked
+     * by the selector as long as no data is received.
+     */
+
+    public void startInputListener() {
+
+        if (listening) {
+            return;
+        }
+        listening = true;
+        inputListener = new Thread(new InputListenerRunnable(), "HEOS event line " + ip);
+        inputListener.setDaemon(true);
+        inputListener.start();
+
+    }
+
+    public void stopInputListener() {
+
+        if (!listening) {
+            return;
+        }
+        listening = false;
+        readSelector.wakeup();
+        if (Thread.currentThread() != inputListener) {
+            try {
+                inputListener.join(READ_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        inputListener = null;
+
+    }
+
+    /**
+     * Checks if the HEOS system is reachable
+     * via the network. This does not check if
+     * a Telnet connection is open.
+     *
+     * @return true if HEOS is reachable
+     */
+
+    public boolean isConnectionAlive() {
+        try {
+            return address.isReachable(IS_ALIVE_TIMEOUT);
+        } catch (IOException e) {
+            logger.debug("HEOS system at {} not reachable: {}", ip, e.getMessage());
+            return false;
+        }
+    }
+
+    public MyStringPropertyChangeListener getReadResultListener() {
+        return eolNotifyer;
+    }
+
+    public boolean isConnected() {
+        return channel != null && channel.isConnected();
+    }
+
+    /**
+     * Runnable for the input listener. Every received line is
+     * handed to the {@link MyStringPropertyChangeListener}
+     */
+
+    private class InputListenerRunnable implements Runnable {
+
+        private ArrayList<String> lines = new ArrayList<String>(5);
+
+        @Override
+        public void run() {
+            try {
+                while (listening && isConnected()) {
+                    if (readSelector.select() == 0) {
+                        continue;
+                    }
+                    readSelector.selectedKeys().clear();
+                    if (fillBuffer() < 0) {
+                        logger.warn("HEOS event line closed by HEOS system at {}", ip);
+                        break;
+                    }
+                    frameLines(lines);
+                    for (int i = 0; i < lines.size(); i++) {
+                        eolNotifyer.setValue(lines.get(i));
+                    }
+                    lines.clear();
+                }
+            } catch (IOException e) {
+                logger.warn("HEOS event line listener stopped with message: {}", e.getMessage());
+            } finally {
+                listening = false;
+            }
+        }
+    }
+
+    public static class ReadException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        public ReadException() {
+            super("Can not read from client");
+        }
+
+    }
+}
@@ -0,0 +1,124 @@
+package org.openhab.binding.heos.resources;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+import org.openhab.binding.heos.api.HeosEventController;
+
+/**
+ * Tests the coalescing and the overflow policy of the {@link HeosEventQueue}.
+ * The dispatching is run by the test, so the queued events can be inspected.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosEventQueueTest {
+
+    private HeosJsonParser parser = new HeosJsonParser();
+    private List<HeosResponse> handledEvents = new ArrayList<HeosResponse>();
+    private List<Runnable> dispatchers = new ArrayList<Runnable>();
+
+    private HeosEventController eventController = new HeosEventController(null, null, null) {
+
+        @Override
+        public void handleEvent(HeosResponse response, int client) {
+            handledEvents.add(response);
+        }
+    };
+
+    private Executor dispatchExecutor = new Executor() {
+
+        @Override
+        public void execute(Runnable command) {
+            dispatchers.add(command);
+        }
+    };
+
+    @Test
+    public void handsEventsInReceivedOrder() {
+
+        HeosEventQueue queue = new HeosEventQueue(eventController, dispatchExecutor, 10);
+        queue.offer(volumeEvent("1", "10"));
+        queue.offer(volumeEvent("2", "20"));
+        dispatch();
+
+        assertEquals(2, handledEvents.size());
+        assertEquals("1", handledEvents.get(0).getEvent().getMessages().get("pid"));
+        assertEquals("2", handledEvents.get(1).getEvent().getMessages().get("pid"));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void startsOnlyOneDispatcher() {
+
+        HeosEventQueue queue = new HeosEventQueue(eventController, dispatchExecutor, 10);
+        queue.offer(volumeEvent("1", "10"));
+        queue.offer(volumeEvent("2", "20"));
+
+        assertEquals(1, dispatchers.size());
+        dispatch();
+        queue.offer(volumeEvent("3", "30"));
+        assertEquals(2, dispatchers.size());
+    }
+
+    @Test
+    public void coalescesEventsOfSamePlayerAndType() {
+
+        HeosEventQueue queue = new HeosEventQueue(eventController, dispatchExecutor, 10);
+        queue.offer(volumeEvent("1", "10"));
+        queue.offer(volumeEvent("1", "20"));
+        queue.offer(volumeEvent("1", "30"));
+
+        assertEquals(1, queue.size());
+        assertEquals(2, queue.getDroppedEvents());
+        dispatch();
+        assertEquals(1, handledEvents.size());
+        assertEquals("30", handledEvents.get(0).getEvent().getMessages().get("level"));
+    }
+
+    @Test
+    public void keepsEventsOfOtherTypes() {
+
+        HeosEventQueue queue = new HeosEventQueue(eventController, dispatchExecutor, 10);
+        queue.offer(volumeEvent("1", "10"));
+        queue.offer(parser.parseResult("{\"heos\": {\"command\": \"event/player_state_changed\", "
+                + "\"message\": \"pid=1&state=play\"}}"));
+
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.getDroppedEvents());
+    }
+
+    @Test
+    public void dropsOldestEventIfFull() {
+
+        HeosEventQueue queue = new HeosEventQueue(eventController, dispatchExecutor, 2);
+        queue.offer(volumeEvent("1", "10"));
+        queue.offer(volumeEvent("2", "20"));
+        queue.offer(volumeEvent("3", "30"));
+
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getDroppedEvents());
+        dispatch();
+        assertEquals("2", handledEvents.get(0).getEvent().getMessages().get("pid"));
+        assertEquals("3", handledEvents.get(1).getEvent().getMessages().get("pid"));
+    }
+
+    private void dispatch() {
+
+        List<Runnable> pending = new ArrayList<Runnable>(dispatchers);
+        for (Runnable dispatcher : pending) {
+            dispatcher.run();
+        }
+    }
+
+    private HeosResponse volumeEvent(String pid, String level) {
+        return parser.parseResult("{\"heos\": {\"command\": \"event/player_volume_changed\", \"message\": \"pid="
+                + pid + "&level=" + level + "&mute=off\"}}");
+    }
+
+}
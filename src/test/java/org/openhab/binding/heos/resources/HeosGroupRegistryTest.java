@@ -0,0 +1,110 @@
+package org.openhab.binding.heos.resources;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Tests the update and the indices of the {@link HeosGroupRegistry}
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosGroupRegistryTest {
+
+    private HeosJsonParser parser = new HeosJsonParser();
+    private HeosGroupRegistry registry = new HeosGroupRegistry();
+
+    @Test
+    public void reportsAddedGroups() {
+
+        HeosGroup kitchen = group("Kitchen", "1", "1", "2");
+        HeosGroupRegistry.Changes changes = registry.update(Arrays.asList(kitchen));
+
+        assertEquals(1, changes.getAdded().size());
+        assertSame(kitchen, changes.getAdded().get(kitchen.getNameHash()));
+        assertTrue(changes.getRemoved().isEmpty());
+        assertTrue(changes.getChanged().isEmpty());
+    }
+
+    @Test
+    public void reportsNoChangesForSameGroups() {
+
+        registry.update(Arrays.asList(group("Kitchen", "1", "1", "2")));
+        HeosGroupRegistry.Changes changes = registry.update(Arrays.asList(group("Kitchen", "1", "1", "2")));
+
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void reportsChangedAndRemovedGroups() {
+
+        HeosGroup living = group("Living", "3", "3", "4");
+        registry.update(Arrays.asList(group("Kitchen", "1", "1", "2"), living));
+        HeosGroup kitchen = group("Kitchen", "1", "1", "2", "5");
+        HeosGroupRegistry.Changes changes = registry.update(Arrays.asList(kitchen));
+
+        assertTrue(changes.getAdded().isEmpty());
+        assertSame(kitchen, changes.getChanged().get(kitchen.getNameHash()));
+        assertTrue(changes.getRemoved().containsKey(living.getNameHash()));
+        assertEquals(1, registry.getGroups().size());
+    }
+
+    @Test
+    public void reportsRegisteredGroupsAsRemoved() {
+
+        HeosGroup kitchen = group("Kitchen", "1", "1", "2");
+        registry.register(kitchen);
+        HeosGroupRegistry.Changes changes = registry.update(Collections.<HeosGroup> emptyList());
+
+        assertTrue(changes.getRemoved().containsKey(kitchen.getNameHash()));
+        assertNull(registry.getByGid("1"));
+    }
+
+    @Test
+    public void indexesGroupsAndPlayers() {
+
+        registry.update(Arrays.asList(group("Kitchen", "1", "1", "2"), group("Living", "3", "3", "4")));
+
+        assertEquals("Kitchen", registry.getByGid("1").getName());
+        assertEquals("Living", registry.getGroupOfPlayer("4").getName());
+        assertEquals("Kitchen", registry.getByMemberHash(HeosGroup.memberHashOf(Arrays.asList("2", "1"))).getName());
+        assertNull(registry.getGroupOfPlayer("5"));
+    }
+
+    @Test
+    public void updatesIndicesIfPlayerChangesGroup() {
+
+        registry.update(Arrays.asList(group("Kitchen", "1", "1", "2"), group("Living", "3", "3", "4")));
+        registry.update(Arrays.asList(group("Kitchen", "1", "1", "2", "4")));
+
+        assertEquals("Kitchen", registry.getGroupOfPlayer("4").getName());
+        assertNull(registry.getGroupOfPlayer("3"));
+        assertNull(registry.getByGid("3"));
+        assertNull(registry.getByMemberHash(HeosGroup.memberHashOf(Arrays.asList("1", "2"))));
+    }
+
+    /*
+     * Creates the group like it is reported by the HEOS system. The first pid is the leader.
+     */
+
+    private HeosGroup group(String name, String gid, String... pids) {
+
+        StringBuilder players = new StringBuilder();
+        for (int i = 0; i < pids.length; i++) {
+            players.append(i == 0 ? "" : ", ").append("{\"name\": \"P").append(pids[i]).append("\", \"pid\": ")
+                    .append(pids[i]).append(", \"role\": \"").append(i == 0 ? "leader" : "member").append("\"}");
+        }
+        HeosResponse response = parser.parseResult("{\"heos\": {\"command\": \"group/get_groups\", "
+                + "\"result\": \"success\", \"message\": \"\"}, \"payload\": [{\"name\": \"" + name + "\", \"gid\": "
+                + gid + ", \"players\": [" + players + "]}]}");
+        HeosGroup group = new HeosGroup();
+        group.updateGroupInfo(response.getPayload().getGroups().get(0));
+        return group;
+    }
+
+}
@@ -0,0 +1,142 @@
+package org.openhab.binding.heos.resources;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.google.gson.JsonParseException;
+
+/**
+ * Tests the decoding of the responses of the HEOS system by the {@link HeosJsonParser}
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosJsonParserTest {
+
+    private HeosJsonParser parser = new HeosJsonParser();
+
+    @Test
+    public void parsesResponseWithoutPayload() {
+
+        HeosResponse response = parser.parseResult(
+                "{\"heos\": {\"command\": \"player/get_volume\", \"result\": \"success\", \"message\": \"pid=1&level=30\"}}");
+
+        assertEquals("player/get_volume", response.getEvent().getCommand());
+        assertEquals("player", response.getEvent().getEventType());
+        assertEquals("get_volume", response.getEvent().getCommandType());
+        assertEquals("success", response.getEvent().getResult());
+        assertEquals("30", response.getEvent().getMessages().get("level"));
+        assertEquals("1", response.getPid());
+        assertTrue(response.getPayload().getPlayers().isEmpty());
+    }
+
+    @Test
+    public void parsesEvent() {
+
+        HeosResponse response = parser.parseResult(
+                "{\"heos\": {\"command\": \"event/player_volume_changed\", \"message\": \"pid=1&level=30&mute=off\"}}");
+
+        assertEquals("event", response.getEvent().getEventType());
+        assertEquals("player_volume_changed", response.getEvent().getCommandType());
+        assertEquals("off", response.getEvent().getMessages().get("mute"));
+    }
+
+    @Test
+    public void parsesFailure() {
+
+        HeosResponse response = parser.parseResult(
+                "{\"heos\": {\"command\": \"system/sign_in\", \"result\": \"fail\", \"message\": \"eid=10&text=User not found\"}}");
+
+        assertEquals("10", response.getEvent().getErrorCode());
+        assertEquals("User not found", response.getEvent().getErrorMessage());
+    }
+
+    @Test
+    public void parsesPlayers() {
+
+        HeosResponse response = parser.parseResult("{\"heos\": {\"command\": \"player/get_players\", "
+                + "\"result\": \"success\", \"message\": \"\"}, \"payload\": ["
+                + "{\"name\": \"Kitchen\", \"pid\": 1, \"model\": \"HEOS 1\", \"ip\": \"192.168.0.2\"}, "
+                + "{\"name\": \"Living\", \"pid\": -2, \"gid\": 1, \"model\": \"HEOS 3\"}]}");
+
+        assertEquals(2, response.getPayload().getPlayers().size());
+        HeosPlayerInfo kitchen = response.getPayload().getPlayers().get(0);
+        assertEquals("Kitchen", kitchen.getName());
+        assertEquals("1", kitchen.getPid());
+        assertEquals("192.168.0.2", kitchen.getIp());
+        assertEquals("-2", response.getPayload().getPlayers().get(1).getPid());
+        assertEquals("1", response.getPayload().getPlayers().get(1).getGid());
+    }
+
+    @Test
+    public void parsesSinglePlayerObject() {
+
+        HeosResponse response = parser.parseResult("{\"heos\": {\"command\": \"player/get_player_info\", "
+                + "\"result\": \"success\", \"message\": \"pid=1\"}, \"payload\": {\"name\": \"Kitchen\", \"pid\": 1}}");
+
+        assertEquals(1, response.getPayload().getPlayers().size());
+        assertEquals("Kitchen", response.getPayload().getPlayers().get(0).getName());
+    }
+
+    @Test
+    public void parsesGroupsWithMembers() {
+
+        HeosResponse response = parser.parseResult("{\"heos\": {\"command\": \"group/get_groups\", "
+                + "\"result\": \"success\", \"message\": \"\"}, \"payload\": [{\"name\": \"Kitchen + Living\", "
+                + "\"gid\": 1, \"players\": [{\"name\": \"Living\", \"pid\": 2, \"role\": \"member\"}, "
+                + "{\"name\": \"Kitchen\", \"pid\": 1, \"role\": \"leader\"}]}]}");
+
+        assertEquals(1, response.getPayload().getGroups().size());
+        HeosGroupInfo group = response.getPayload().getGroups().get(0);
+        assertEquals("Kitchen + Living", group.getName());
+        assertEquals("1", group.getGid());
+        assertEquals(2, group.getMembers().size());
+        assertEquals("1", group.getLeader());
+    }
+
+    @Test
+    public void parsesBrowseItems() {
+
+        HeosResponse response = parser.parseResult("{\"heos\": {\"command\": \"browse/browse\", "
+                + "\"result\": \"success\", \"message\": \"sid=1028&returned=1&count=1\"}, \"payload\": ["
+                + "{\"container\": \"no\", \"mid\": \"s1234\", \"type\": \"station\", \"playable\": \"yes\", "
+                + "\"name\": \"Radio\", \"image_url\": \"\"}]}");
+
+        assertEquals(1, response.getPayload().getBrowseItems().size());
+        assertEquals("s1234", response.getPayload().getBrowseItems().get(0).getMid());
+        assertEquals("Radio", response.getPayload().getBrowseItems().get(0).getName());
+    }
+
+    @Test
+    public void skipsPayloadOfUnknownCommands() {
+
+        HeosResponse response = parser.parseResult("{\"heos\": {\"command\": \"system/check_account\", "
+                + "\"result\": \"success\", \"message\": \"signed_in&un=test\"}, \"payload\": [{\"a\": [1, 2]}], "
+                + "\"options\": []}");
+
+        assertEquals("system/check_account", response.getEvent().getCommand());
+        assertTrue(response.getPayload().getBrowseItems().isEmpty());
+    }
+
+    @Test
+    public void replacesImplausiblePid() {
+
+        HeosResponse response = parser.parseResult(
+                "{\"heos\": {\"command\": \"player/get_volume\", \"result\": \"success\", \"message\": \"pid=1234567890&level=30\"}}");
+
+        assertEquals("0", response.getPid());
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void rejectsResponseWithoutHeosSection() {
+        parser.parseResult("{\"payload\": []}");
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void rejectsInvalidJson() {
+        parser.parseResult("{\"heos\": {\"command\": ");
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.openhab.binding.heos.resources;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests the cursor based lookup and the decoding of the {@link HeosMessage}
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosMessageTest {
+
+    @Test
+    public void findsValuesAtEveryPosition() {
+
+        HeosMessage message = new HeosMessage("pid=12345&level=30&mute=off");
+
+        assertEquals("12345", message.get("pid"));
+        assertEquals("30", message.get("level"));
+        assertEquals("off", message.get("mute"));
+    }
+
+    @Test
+    public void returnsNullForMissingKeys() {
+
+        HeosMessage message = new HeosMessage("pid=12345&level=30");
+
+        assertNull(message.get("gid"));
+        assertNull(message.get("lev"));
+        assertFalse(message.containsKey("mute"));
+        assertNull(new HeosMessage(null).get("pid"));
+    }
+
+    @Test
+    public void doesNotMatchKeysWhichArePrefixOfAnotherKey() {
+
+        HeosMessage message = new HeosMessage("pidx=1&pid=2");
+
+        assertEquals("2", message.get("pid"));
+    }
+
+    @Test
+    public void decodesEscapedCharacters() {
+
+        HeosMessage message = new HeosMessage("name=Rock%20%26%20Roll&text=a%3Db%25c&plus=a+b");
+
+        assertEquals("Rock & Roll", message.get("name"));
+        assertEquals("a=b%c", message.get("text"));
+        assertEquals("a+b", message.get("plus"));
+    }
+
+    @Test
+    public void decodesMultiByteCharacters() {
+
+        HeosMessage message = new HeosMessage("name=K%C3%B6ln");
+
+        assertEquals("K\u00f6ln", message.get("name"));
+    }
+
+    @Test
+    public void keepsInvalidEscapeSequences() {
+
+        HeosMessage message = new HeosMessage("name=100%zz&end=50%");
+
+        assertEquals("100%zz", message.get("name"));
+        assertEquals("50%", message.get("end"));
+    }
+
+    @Test
+    public void detectsCommandUnderProcess() {
+
+        HeosMessage message = new HeosMessage("command under process&sid=1");
+
+        assertTrue(message.isCommandUnderProcess());
+        assertNull(message.get("sid"));
+        assertFalse(new HeosMessage("pid=1").isCommandUnderProcess());
+    }
+
+}
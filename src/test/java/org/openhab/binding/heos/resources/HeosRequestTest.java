@@ -0,0 +1,103 @@
+package org.openhab.binding.heos.resources;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests the correlation of responses and the coalescing rules of the {@link HeosRequest}
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosRequestTest {
+
+    private HeosJsonParser parser = new HeosJsonParser();
+
+    @Test
+    public void parsesCommandAndIds() {
+
+        HeosRequest request = new HeosRequest("heos://player/set_volume?pid=1&level=30");
+
+        assertEquals("1", request.getPid());
+        assertNull(request.getGid());
+        assertEquals(HeosRequest.PRIORITY_INTERACTIVE, request.getPriority());
+        assertEquals(HeosRequest.PRIORITY_POLL, new HeosRequest("heos://player/get_volume?pid=1").getPriority());
+        assertEquals(HeosRequest.PRIORITY_DEFAULT, new HeosRequest("heos://system/sign_out").getPriority());
+    }
+
+    @Test
+    public void matchesResponseOfSameCommandAndId() {
+
+        HeosRequest request = new HeosRequest("heos://player/get_volume?pid=1");
+
+        assertTrue(request.matches(response("player/get_volume", "pid=1&level=30")));
+        assertFalse(request.matches(response("player/get_volume", "pid=2&level=30")));
+        assertFalse(request.matches(response("player/get_mute", "pid=1&state=on")));
+    }
+
+    @Test
+    public void matchesGroupResponseByGid() {
+
+        HeosRequest request = new HeosRequest("heos://group/get_volume?gid=5");
+
+        assertTrue(request.matches(response("group/get_volume", "gid=5&level=30")));
+        assertFalse(request.matches(response("group/get_volume", "gid=6&level=30")));
+    }
+
+    @Test
+    public void matchesResponseWithoutIds() {
+
+        HeosRequest request = new HeosRequest("heos://system/heart_beat");
+
+        assertTrue(request.matches(response("system/heart_beat", "")));
+        assertTrue(new HeosRequest("heos://browse/browse?sid=1")
+                .matches(response("browse/browse", "command under process&sid=1")));
+    }
+
+    @Test
+    public void replacesQueuedVolumeOfSamePlayer() {
+
+        HeosRequest queued = new HeosRequest("heos://player/set_volume?pid=1&level=10");
+
+        assertTrue(new HeosRequest("heos://player/set_volume?pid=1&level=20").replaces(queued));
+        assertFalse(new HeosRequest("heos://player/set_volume?pid=2&level=20").replaces(queued));
+        assertTrue(new HeosRequest("heos://group/set_volume?gid=1&level=20")
+                .replaces(new HeosRequest("heos://group/set_volume?gid=1&level=10")));
+    }
+
+    @Test
+    public void doesNotReplaceOtherCommands() {
+
+        assertFalse(new HeosRequest("heos://player/volume_up?pid=1&step=5")
+                .replaces(new HeosRequest("heos://player/volume_up?pid=1&step=5")));
+        assertFalse(new HeosRequest("heos://player/set_mute?pid=1&state=on")
+                .replaces(new HeosRequest("heos://player/set_volume?pid=1&level=10")));
+    }
+
+    @Test
+    public void generatedRequestDoesNotReplaceRequestOfUser() {
+
+        HeosRequest user = new HeosRequest("heos://player/set_volume?pid=1&level=10");
+        HeosRequest step = new HeosRequest("heos://player/set_volume?pid=1&level=20", true);
+
+        assertFalse(step.replaces(user));
+        assertTrue(user.replaces(step));
+        assertTrue(new HeosRequest("heos://player/set_volume?pid=1&level=30", true).replaces(step));
+    }
+
+    @Test
+    public void findsTargetOfCommand() {
+
+        assertEquals("1", HeosRequest.targetOf("heos://player/set_volume?pid=1&level=30"));
+        assertEquals("5", HeosRequest.targetOf("heos://group/set_volume?gid=5&level=30"));
+        assertNull(HeosRequest.targetOf("heos://system/heart_beat"));
+    }
+
+    private HeosResponse response(String command, String message) {
+        return parser.parseResult("{\"heos\": {\"command\": \"" + command + "\", \"result\": \"success\", "
+                + "\"message\": \"" + message + "\"}}");
+    }
+
+}
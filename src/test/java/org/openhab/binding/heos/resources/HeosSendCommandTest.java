@@ -0,0 +1,229 @@
+package org.openhab.binding.heos.resources;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.heos.api.HeosEventController;
+
+/**
+ * Tests the queuing, coalescing and correlation of the {@link HeosSendCommand}.
+ * The connection is replaced by a {@link FakeTelnet} which records the written
+ * commands, the responses are handed in by the test.
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class HeosSendCommandTest {
+
+    private final static long TIMEOUT = 2000;
+    private final static int MAX_IN_FLIGHT = 4;
+
+    private HeosJsonParser parser = new HeosJsonParser();
+    private ScheduledThreadPoolExecutor scheduler;
+    private FakeTelnet client;
+    private HeosSendCommand sendCommand;
+
+    private HeosEventController eventController = new HeosEventController(null, null, null) {
+
+        @Override
+        public void handleEvent(HeosResponse response, int client) {
+        }
+    };
+
+    @Before
+    public void setUp() {
+
+        scheduler = new ScheduledThreadPoolExecutor(2);
+        HeosEventQueue eventQueue = new HeosEventQueue(eventController, new Executor() {
+
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }, 10);
+        client = new FakeTelnet();
+        sendCommand = new HeosSendCommand(client, parser, eventController, eventQueue, scheduler);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void sendsAndCompletesWithMatchingResponse() throws Exception {
+
+        CompletableFuture<HeosResponse> volume1 = sendCommand.sendAsync("heos://player/get_volume?pid=1");
+        CompletableFuture<HeosResponse> volume2 = sendCommand.sendAsync("heos://player/get_volume?pid=2");
+        client.receive(response("player/get_volume", "pid=2&level=20"));
+        client.receive(response("player/get_volume", "pid=1&level=10"));
+
+        assertEquals("10", volume1.get(TIMEOUT, TimeUnit.MILLISECONDS).getEvent().getMessages().get("level"));
+        assertEquals("20", volume2.get(TIMEOUT, TimeUnit.MILLISECONDS).getEvent().getMessages().get("level"));
+        assertEquals(0, sendCommand.getPendingRequestCount());
+    }
+
+    @Test
+    public void coalescesQueuedVolumeCommands() throws Exception {
+
+        fillInFlight();
+        CompletableFuture<HeosResponse> volume10 = sendCommand.sendAsync("heos://player/set_volume?pid=9&level=10");
+        CompletableFuture<HeosResponse> volume20 = sendCommand.sendAsync("heos://player/set_volume?pid=9&level=20");
+        CompletableFuture<HeosResponse> volume30 = sendCommand.sendAsync("heos://player/set_volume?pid=9&level=30");
+
+        assertEquals(2, sendCommand.getCoalescedRequests());
+        assertEquals(MAX_IN_FLIGHT, client.getSentCommands().size());
+
+        client.receive(response("player/get_volume", "pid=1&level=1"));
+        assertEquals("heos://player/set_volume?pid=9&level=30", client.awaitSentCommand(MAX_IN_FLIGHT));
+        client.receive(response("player/set_volume", "pid=9&level=30"));
+
+        HeosResponse response = volume30.get(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertSame(response, volume10.get(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertSame(response, volume20.get(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void doesNotCoalesceGeneratedCommandOverCommandOfUser() throws Exception {
+
+        fillInFlight();
+        sendCommand.sendAsync("heos://player/set_volume?pid=9&level=10");
+        sendCommand.sendAsync("heos://player/set_volume?pid=9&level=20", true);
+
+        assertEquals(0, sendCommand.getCoalescedRequests());
+    }
+
+    @Test
+    public void sendsInteractiveCommandsFirst() throws Exception {
+
+        fillInFlight();
+        sendCommand.sendAsync("heos://player/get_now_playing_media?pid=9");
+        sendCommand.sendAsync("heos://player/set_play_state?pid=9&state=play");
+
+        client.receive(response("player/get_volume", "pid=1&level=1"));
+        assertEquals("heos://player/set_play_state?pid=9&state=play", client.awaitSentCommand(MAX_IN_FLIGHT));
+        client.receive(response("player/get_volume", "pid=2&level=1"));
+        assertEquals("heos://player/get_now_playing_media?pid=9", client.awaitSentCommand(MAX_IN_FLIGHT + 1));
+    }
+
+    @Test
+    public void correlatesCommandUnderProcessWithOldestRequest() throws Exception {
+
+        CompletableFuture<HeosResponse> browse1 = sendCommand.sendAsync("heos://browse/browse?sid=1");
+        CompletableFuture<HeosResponse> browse2 = sendCommand.sendAsync("heos://browse/browse?sid=2");
+
+        client.receive(response("browse/browse", "command under process&sid=1"));
+        client.receive(response("browse/browse", "command under process&sid=2"));
+        assertFalse(browse1.isDone());
+        assertFalse(browse2.isDone());
+        assertEquals(2, sendCommand.getPendingRequestCount());
+
+        client.receive(response("browse/browse", "sid=1&returned=0&count=0"));
+        assertNotNull(browse1.get(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertFalse(browse2.isDone());
+        client.receive(response("browse/browse", "sid=2&returned=0&count=0"));
+        assertNotNull(browse2.get(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void deferredRequestDoesNotCountAsInFlight() throws Exception {
+
+        sendCommand.sendAsync("heos://browse/browse?sid=1");
+        for (int i = 1; i < MAX_IN_FLIGHT; i++) {
+            sendCommand.sendAsync("heos://player/get_volume?pid=" + i);
+        }
+        sendCommand.sendAsync("heos://player/get_mute?pid=9");
+        assertEquals(MAX_IN_FLIGHT, client.getSentCommands().size());
+
+        client.receive(response("browse/browse", "command under process&sid=1"));
+        assertEquals("heos://player/get_mute?pid=9", client.awaitSentCommand(MAX_IN_FLIGHT));
+    }
+
+    @Test
+    public void failsPendingAndQueuedRequests() throws Exception {
+
+        fillInFlight();
+        CompletableFuture<HeosResponse> queued = sendCommand.sendAsync("heos://player/get_mute?pid=9");
+        sendCommand.failPendingRequests("closed");
+
+        try {
+            queued.get(TIMEOUT, TimeUnit.MILLISECONDS);
+            fail("The queued request was not failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(0, sendCommand.getPendingRequestCount());
+    }
+
+    private void fillInFlight() {
+
+        for (int i = 1; i <= MAX_IN_FLIGHT; i++) {
+            sendCommand.sendAsync("heos://player/get_volume?pid=" + i);
+        }
+        assertEquals(MAX_IN_FLIGHT, client.getSentCommands().size());
+    }
+
+    private String response(String command, String message) {
+        return "{\"heos\": {\"command\": \"" + command + "\", \"result\": \"success\", \"message\": \"" + message
+                + "\"}}";
+    }
+
+    /**
+     * A connection which records the written commands instead of sending them
+     */
+
+    private static class FakeTelnet extends NioTelnet {
+
+        private final List<String> sentCommands = new ArrayList<String>();
+
+        @Override
+        public synchronized boolean send(String command) {
+            sentCommands.add(command);
+            notifyAll();
+            return true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void startInputListener() {
+        }
+
+        private void receive(String frame) {
+            getReadResultListener().setValue(frame);
+        }
+
+        private synchronized List<String> getSentCommands() {
+            return new ArrayList<String>(sentCommands);
+        }
+
+        /*
+         * Queued commands are send by a thread of the scheduler after a response was received
+         */
+
+        private synchronized String awaitSentCommand(int index) throws InterruptedException {
+
+            long end = System.currentTimeMillis() + TIMEOUT;
+            while (sentCommands.size() <= index && System.currentTimeMillis() < end) {
+                wait(end - System.currentTimeMillis());
+            }
+            return sentCommands.size() > index ? sentCommands.get(index) : null;
+        }
+    }
+
+}
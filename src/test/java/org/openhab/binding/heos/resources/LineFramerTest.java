@@ -0,0 +1,108 @@
+package org.openhab.binding.heos.resources;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the framing of the received bytes by the {@link LineFramer}
+ *
+ * @author Johannes Einig
+ *
+ */
+
+public class LineFramerTest {
+
+    @Test
+    public void framesCompleteLines() {
+
+        LineFramer framer = new LineFramer(64);
+        List<String> frames = receive(framer, "abc\r\ndef\r\n");
+
+        assertEquals(2, frames.size());
+        assertEquals("abc", frames.get(0));
+        assertEquals("def", frames.get(1));
+    }
+
+    @Test
+    public void framesLinesSplitAcrossReceivedBuffers() {
+
+        LineFramer framer = new LineFramer(64);
+        List<String> frames = new ArrayList<String>();
+        frames.addAll(receive(framer, "ab"));
+        assertTrue(frames.isEmpty());
+        frames.addAll(receive(framer, "c\r"));
+        assertTrue(frames.isEmpty());
+        frames.addAll(receive(framer, "\nde"));
+        frames.addAll(receive(framer, "f\r\n"));
+
+        assertEquals(2, frames.size());
+        assertEquals("abc", frames.get(0));
+        assertEquals("def", frames.get(1));
+    }
+
+    @Test
+    public void skipsEmptyFrames() {
+
+        LineFramer framer = new LineFramer(64);
+        List<String> frames = receive(framer, "\r\n\r\nabc\r\n");
+
+        assertEquals(1, frames.size());
+        assertEquals("abc", frames.get(0));
+    }
+
+    @Test
+    public void enlargesTheBufferForLongFrames() {
+
+        LineFramer framer = new LineFramer(4, 64);
+        List<String> frames = receive(framer, "0123456789abcdef\r\n");
+
+        assertEquals(1, frames.size());
+        assertEquals("0123456789abcdef", frames.get(0));
+        assertEquals(0, framer.getDroppedFrames());
+    }
+
+    @Test
+    public void dropsFramesExceedingTheMaximumSize() {
+
+        LineFramer framer = new LineFramer(4, 16);
+        List<String> frames = receive(framer, "0123456789abcdefghijklmnopqrstuvwxyz\r\nok\r\n");
+
+        assertEquals(1, frames.size());
+        assertEquals("ok", frames.get(0));
+        assertEquals(1, framer.getDroppedFrames());
+    }
+
+    @Test
+    public void decodesUtf8() {
+
+        LineFramer framer = new LineFramer(64);
+        List<String> frames = receive(framer, "K\u00f6ln\r\n");
+
+        assertEquals("K\u00f6ln", frames.get(0));
+    }
+
+    /*
+     * Writes the bytes one by one like a connection which receives single bytes
+     */
+
+    private List<String> receive(LineFramer framer, String data) {
+
+        List<String> frames = new ArrayList<String>();
+        for (byte b : data.getBytes(StandardCharsets.UTF_8)) {
+            framer.getReceiveBuffer().put(b);
+            ByteBuffer frame = framer.nextFrame();
+            while (frame != null) {
+                frames.add(LineFramer.decode(frame));
+                frame = framer.nextFrame();
+            }
+        }
+        return frames;
+    }
+
+}